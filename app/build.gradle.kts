@@ -14,6 +14,11 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Process of EyeBlinkerService: its own lightweight ":timer" process, or the app's main
+        // process (named after the package) by default
+        val timerProcess = providers.gradleProperty("eyeBlinker.timerProcess").orNull == "true"
+        manifestPlaceholders["timerProcess"] = if (timerProcess) ":timer" else "com.example.eye"
     }
 
     buildTypes {
@@ -33,6 +38,7 @@ android {
 
 dependencies {
 
+    implementation(project(":core"))
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
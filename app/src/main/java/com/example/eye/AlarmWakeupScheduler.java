@@ -0,0 +1,64 @@
+package com.example.eye;
+
+import android.app.AlarmManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * {@link WakeupScheduler} backed by AlarmManager listener alarms, so the CPU can sleep
+ * between phase boundaries. Falls back to inexact window alarms when exact alarms are not
+ * allowed, and to a plain Handler when AlarmManager is unavailable (see {@link AlarmPolicy}).
+ */
+final class AlarmWakeupScheduler implements WakeupScheduler {
+
+    private static final String TAG = "AlarmWakeupScheduler";
+    private static final String ALARM_TAG = "EyeBlinker:phaseBoundary";
+    private static final long WINDOW_LENGTH_MILLIS = 5_000; // Allowed batching delay when exact alarms are denied
+
+    private final AlarmManager alarmManager;
+    private final Handler handler;
+    private final Runnable onWakeup;
+    private final AlarmManager.OnAlarmListener alarmListener;
+
+    AlarmWakeupScheduler(Context context, Handler handler, Runnable onWakeup) {
+        this.alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        this.handler = handler;
+        this.onWakeup = onWakeup;
+        this.alarmListener = onWakeup::run;
+    }
+
+    @Override
+    public void scheduleWakeup(long triggerAtElapsedMillis) {
+        cancelWakeup();
+        AlarmPolicy policy = AlarmPolicy.select(Build.VERSION.SDK_INT, alarmManager != null, canScheduleExactAlarms());
+        switch (policy) {
+            case EXACT:
+                alarmManager.setExact(AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerAtElapsedMillis,
+                        ALARM_TAG, alarmListener, handler);
+                break;
+            case WINDOWED:
+                alarmManager.setWindow(AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerAtElapsedMillis,
+                        WINDOW_LENGTH_MILLIS, ALARM_TAG, alarmListener, handler);
+                break;
+            case HANDLER:
+                handler.postDelayed(onWakeup, Math.max(0, triggerAtElapsedMillis - SystemClock.elapsedRealtime()));
+                break;
+        }
+        Log.d(TAG, "Wakeup scheduled (" + policy + ") in " + (triggerAtElapsedMillis - SystemClock.elapsedRealtime()) + "ms");
+    }
+
+    @Override
+    public void cancelWakeup() {
+        if (alarmManager != null) alarmManager.cancel(alarmListener);
+        handler.removeCallbacks(onWakeup);
+    }
+
+    private boolean canScheduleExactAlarms() {
+        if (alarmManager == null) return false;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) return alarmManager.canScheduleExactAlarms();
+        return true;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.eye;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.PowerManager;
+import android.util.Log;
+
+/**
+ * {@link ScreenStateSource} backed by the SCREEN_OFF / SCREEN_ON / USER_PRESENT system broadcasts.
+ * These can only be received by a receiver registered at runtime, so it lives as long as the service.
+ */
+final class BroadcastScreenStateSource implements ScreenStateSource {
+
+    private static final String TAG = "BroadcastScreenState";
+
+    private final Context context;
+    private final Handler handler;
+    private Listener listener;
+
+    private final BroadcastReceiver receiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (listener == null || intent.getAction() == null) return;
+            switch (intent.getAction()) {
+                case Intent.ACTION_SCREEN_OFF:
+                    listener.onScreenOff();
+                    break;
+                case Intent.ACTION_SCREEN_ON:
+                    listener.onScreenOn();
+                    break;
+                case Intent.ACTION_USER_PRESENT:
+                    listener.onUserPresent();
+                    break;
+                default:
+                    break;
+            }
+        }
+    };
+
+    /**
+     * @param handler Thread the listener is called on; must be the thread driving the cycle engine.
+     */
+    BroadcastScreenStateSource(Context context, Handler handler) {
+        this.context = context;
+        this.handler = handler;
+    }
+
+    @Override
+    public void start(Listener listener) {
+        stop();
+        this.listener = listener;
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_SCREEN_OFF);
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        filter.addAction(Intent.ACTION_USER_PRESENT);
+        // Protected system broadcasts, no export flag needed
+        context.registerReceiver(receiver, filter, null, handler);
+
+        // Started with the screen already off (e.g. restarted by the system): no broadcast is coming for that
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (powerManager != null && !powerManager.isInteractive()) {
+            Log.d(TAG, "Screen is off at start");
+            listener.onScreenOff();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (listener == null) return;
+        listener = null;
+        context.unregisterReceiver(receiver);
+    }
+}
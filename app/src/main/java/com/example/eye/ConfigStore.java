@@ -0,0 +1,167 @@
+package com.example.eye;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Process-wide home of the {@link BlinkerConfig}.
+ * The preferences file is read once on a background thread and the result cached in memory;
+ * writes update the cache immediately and reach the disk in the background. MainActivity and
+ * EyeBlinkerService share the same cached instance when they run in one process. When the service
+ * runs in its own {@code :timer} process the cache is not shared, so the config also travels in
+ * the start intent ({@link #putExtras} / {@link #fromExtras}).
+ */
+public final class ConfigStore {
+
+    private static final String TAG = "ConfigStore";
+
+    // Preference Keys (values stored in SECONDS)
+    private static final String PREFS_NAME = "EyeBlinkerPrefs";
+    private static final String KEY_WORK_TIME = "workTime";
+    private static final String KEY_BREAK_TIME = "breakTime";
+    private static final String KEY_VIBRATION_TIME = "vibrationTime";
+    private static final String KEY_ADAPTIVE = "adaptiveMode";
+    private static final String KEY_PLAN = "schedulePlan"; // SchedulePlan.Preset name
+    private static final String KEY_BACK_TO_WORK_PATTERN = "backToWorkPattern"; // HapticPattern text
+    private static final String KEY_CATCH_UP = "catchUpPolicy"; // CycleEngine.CatchUpPolicy name
+
+    private static volatile ConfigStore instance;
+
+    private final Context appContext;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final AtomicReference<BlinkerConfig> config = new AtomicReference<>();
+    private final Future<BlinkerConfig> initialLoad;
+
+    private ConfigStore(Context context) {
+        appContext = context.getApplicationContext();
+        initialLoad = executor.submit(this::readPreferences);
+    }
+
+    /** @return The shared store; the first call starts loading the preferences in the background. */
+    public static ConfigStore get(Context context) {
+        ConfigStore store = instance;
+        if (store == null) {
+            synchronized (ConfigStore.class) {
+                store = instance;
+                if (store == null) {
+                    store = new ConfigStore(context);
+                    instance = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Delivers the config on the main thread once it is loaded (immediately posted if already cached).
+     * @param callback Receives the current config.
+     */
+    public void load(Consumer<BlinkerConfig> callback) {
+        BlinkerConfig cached = config.get();
+        if (cached != null) {
+            mainThreadHandler.post(() -> callback.accept(cached));
+            return;
+        }
+        executor.execute(() -> {
+            BlinkerConfig loaded = awaitConfig();
+            mainThreadHandler.post(() -> callback.accept(loaded));
+        });
+    }
+
+    /**
+     * @return The current config, waiting for the initial load if it is still running.
+     *         Blocks on disk I/O: never call it on the main thread, use {@link #load} there.
+     */
+    public BlinkerConfig awaitConfig() {
+        BlinkerConfig cached = config.get();
+        if (cached != null) return cached;
+        try {
+            return initialLoad.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Failed to load preferences", e);
+        }
+        return BlinkerConfig.DEFAULT;
+    }
+
+    /** Replaces the cached config right away and persists it in the background. */
+    public void save(BlinkerConfig newConfig) {
+        config.set(newConfig);
+        executor.execute(() -> {
+            appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                    .putInt(KEY_WORK_TIME, newConfig.workTimeSec)
+                    .putInt(KEY_BREAK_TIME, newConfig.breakTimeSec)
+                    .putInt(KEY_VIBRATION_TIME, newConfig.vibrationTimeSec)
+                    .putBoolean(KEY_ADAPTIVE, newConfig.adaptive)
+                    .putString(KEY_PLAN, newConfig.plan.name())
+                    .putString(KEY_BACK_TO_WORK_PATTERN, newConfig.backToWorkPattern)
+                    .putString(KEY_CATCH_UP, newConfig.catchUp.name())
+                    .apply();
+            Log.d(TAG, "Saved " + newConfig);
+        });
+    }
+
+    /** Adds {@code config} to a service start intent; cheap enough to do on every start. */
+    public static void putExtras(Intent intent, BlinkerConfig config) {
+        intent.putExtra(KEY_WORK_TIME, config.workTimeSec)
+                .putExtra(KEY_BREAK_TIME, config.breakTimeSec)
+                .putExtra(KEY_VIBRATION_TIME, config.vibrationTimeSec)
+                .putExtra(KEY_ADAPTIVE, config.adaptive)
+                .putExtra(KEY_PLAN, config.plan.name())
+                .putExtra(KEY_BACK_TO_WORK_PATTERN, config.backToWorkPattern)
+                .putExtra(KEY_CATCH_UP, config.catchUp.name());
+    }
+
+    /** @return The config added by {@link #putExtras}, or null if the intent carries none or it is invalid. */
+    public static BlinkerConfig fromExtras(Intent intent) {
+        if (intent == null || !intent.hasExtra(KEY_WORK_TIME)) return null;
+        try {
+            return new BlinkerConfig(
+                    intent.getIntExtra(KEY_WORK_TIME, 0),
+                    intent.getIntExtra(KEY_BREAK_TIME, 0),
+                    intent.getIntExtra(KEY_VIBRATION_TIME, 0),
+                    intent.getBooleanExtra(KEY_ADAPTIVE, false),
+                    SchedulePlan.Preset.valueOf(intent.getStringExtra(KEY_PLAN)),
+                    intent.getStringExtra(KEY_BACK_TO_WORK_PATTERN),
+                    CycleEngine.CatchUpPolicy.valueOf(intent.getStringExtra(KEY_CATCH_UP)));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            Log.w(TAG, "Start intent carries an invalid config", e);
+            return null;
+        }
+    }
+
+    private BlinkerConfig readPreferences() {
+        SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        BlinkerConfig loaded;
+        try {
+            loaded = new BlinkerConfig(
+                    prefs.getInt(KEY_WORK_TIME, BlinkerConfig.DEFAULT_WORK_TIME_SEC),
+                    prefs.getInt(KEY_BREAK_TIME, BlinkerConfig.DEFAULT_BREAK_TIME_SEC),
+                    prefs.getInt(KEY_VIBRATION_TIME, BlinkerConfig.DEFAULT_VIBRATION_TIME_SEC),
+                    prefs.getBoolean(KEY_ADAPTIVE, false),
+                    SchedulePlan.Preset.valueOf(prefs.getString(KEY_PLAN, SchedulePlan.Preset.CUSTOM.name())),
+                    prefs.getString(KEY_BACK_TO_WORK_PATTERN, HapticLibrary.DEFAULT_BACK_TO_WORK_SOURCE),
+                    CycleEngine.CatchUpPolicy.valueOf(prefs.getString(KEY_CATCH_UP, CycleEngine.CatchUpPolicy.SINGLE_SUMMARY.name())));
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Stored preferences are invalid, using defaults", e);
+            loaded = BlinkerConfig.DEFAULT;
+        }
+        // A save() that raced the initial load wins
+        config.compareAndSet(null, loaded);
+        Log.d(TAG, "Loaded " + config.get());
+        return config.get();
+    }
+}
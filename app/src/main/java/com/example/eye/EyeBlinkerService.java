@@ -8,11 +8,14 @@ import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
-import android.os.CountDownTimer;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
-import android.os.VibrationEffect;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+import android.os.SystemClock;
 import android.os.Vibrator;
 import android.util.Log;
 import android.widget.Toast;
@@ -20,58 +23,103 @@ import android.widget.Toast;
 import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 
-public class EyeBlinkerService extends Service {
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class EyeBlinkerService extends Service implements CycleEngine.Listener {
 
     private static final String TAG = "EyeBlinkerService";
     public static final String NOTIFICATION_CHANNEL_ID = "EyeBlinkerChannel";
     public static final int NOTIFICATION_ID = 1;
-
-    // Default times in SECONDS
-    private static final int DEFAULT_WORK_TIME_SERVICE_SEC = 20 * 60; // 20 minutes
-    private static final int DEFAULT_VIBRATION_DURATION_SEC = 10;     // Default for continuous vibration after work
-    private static final int DEFAULT_BREAK_REST_SERVICE_SEC = 2 * 60; // 2 minutes
-
-    // Variables to hold the current timer durations in MILLISECONDS
-    private long currentWorkTimeMillis;
-    private long currentContinuousVibrationDurationMillis; // For the vibration after work (configurable)
-    private long currentBreakRestMillis;
-
-    private CountDownTimer workTimer;
-    private CountDownTimer breakRestTimer;
-    private Vibrator vibrator;
+    public static final String JOURNAL_FILE_NAME = "session.journal";
+    public static final String STATS_FILE_NAME = "session.stats";
+    public static final String SNAPSHOT_FILE_NAME = "cycle.snapshot";
+
+    // Sent with startService (not startForegroundService) while running: applies the config in the
+    // intent to the running cycle instead of starting over
+    public static final String ACTION_RECONFIGURE = "com.example.eye.action.RECONFIGURE";
+
+    // The running schedule; durations in MILLISECONDS. Volatile: dump() reads it on a binder thread
+    private volatile SchedulePlan schedulePlan;
+    private long currentBreakRestMillis; // Length of the break in progress (plans can mix short and long breaks)
+    private long breakEndElapsed;        // When the break in progress ends, vibration included
+    private boolean reconfiguring;       // The phase being re-entered is the same one with new durations
+    private ConfigStore configStore;
+    private int startRequest;            // Bumped by every start and by onDestroy: drops starts still waiting for the config
+
+    // Wakes up only at phase boundaries; the CPU can sleep in between
+    private CycleEngine cycleEngine;
+    private WakeupScheduler wakeupScheduler;
+    private ServiceMetrics metrics;
+
+    // Vibrations and toasts are played one at a time on their own thread, off the main thread
+    private HandlerThread feedbackThread;
+    private Handler feedbackHandler;
+    private FeedbackDispatcher feedbackDispatcher;
+    private VibratorFeedbackSink feedbackSink;
+    // Patterns are compiled when the settings are applied, never when an alert fires
+    private final HapticLibrary hapticLibrary = new HapticLibrary();
+    private long missedBoundaries; // Of the last catch-up, for its summary alert
+
+    // Adaptive mode only: pauses work timing while the screen is off
+    private ScreenStateSource screenStateSource;
+    private AdaptiveWorkPolicy adaptivePolicy;
+
+    // Built once and reused; the notification counts down by itself so it is only re-posted on phase changes
+    private NotificationManager notificationManager;
+    private NotificationCompat.Builder notificationBuilder;
+    private PhaseNotifier phaseNotifier;
+
+    // All file I/O runs on this single background thread, never on the main thread
+    private ExecutorService ioExecutor;
+    private SessionJournal sessionJournal;
+    private SessionStats sessionStats; // Only touched on ioExecutor
+    private File snapshotFile;
 
     private Handler mainThreadHandler = new Handler(Looper.getMainLooper());
 
-    public static final String EXTRA_WORK_TIME_SEC = "com.example.eye.WORK_TIME_SEC";
-    public static final String EXTRA_VIBRATION_TIME_SEC = "com.example.eye.VIBRATION_TIME_SEC"; // User configured duration for post-work vibe
-    public static final String EXTRA_BREAK_TIME_SEC = "com.example.eye.BREAK_TIME_SEC";
-
-    // Define the FIXED interval pattern for "Back to Work!" (after break)
-    // Pattern: Vibrate 500ms, Pause 500ms, Vibrate 500ms, Pause 500ms...
-    // Total 5 cycles = 5 * (500ms on + 500ms off) = 5000ms = 5 seconds
-    private static final long[] BACK_TO_WORK_INTERVAL_PATTERN = {
-            0,   // Start immediately
-            500, // Vibrate for 500ms
-            500, // Pause for 500ms
-            500, // Vibrate for 500ms
-            500, // Pause for 500ms
-            500, // Vibrate for 500ms
-            500, // Pause for 500ms
-            500, // Vibrate for 500ms
-            500, // Pause for 500ms
-            500  // Vibrate for 500ms (pattern ends after this)
-    };
-
-    public enum VibrationFeedbackType {
-        CONTINUOUS_AFTER_WORK,  // For the one-shot, user-duration vibration when break starts
-        INTERVAL_BACK_TO_WORK   // For the fixed interval pattern when rest ends
-    }
+    // Bound clients (MainActivity) register here and get a message on every state change
+    public static final int MSG_REGISTER_CLIENT = 1;
+    public static final int MSG_UNREGISTER_CLIENT = 2;
+    public static final int MSG_STATE = 3;            // arg1: running (0/1), arg2: phase ordinal, data: phase end
+    private static final String KEY_PHASE_END_ELAPSED = "phaseEndElapsed";
+
+    private final Messenger messenger = new Messenger(new Handler(Looper.getMainLooper(), this::handleClientMessage));
+    private final ArrayList<Messenger> clients = new ArrayList<>();
+    private volatile ServiceState currentState = ServiceState.STOPPED; // Written on the main thread, read by dump() too
 
     @Override
     public void onCreate() {
         super.onCreate();
         Log.d(TAG, "Service onCreate");
-        vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
+        wakeupScheduler = new AlarmWakeupScheduler(this, mainThreadHandler, () -> {
+            metrics.wakeups.incrementAndGet();
+            cycleEngine.onWakeup();
+        });
+        cycleEngine = new CycleEngine(SystemClock::elapsedRealtime, wakeupScheduler, this);
+        metrics = new ServiceMetrics(cycleEngine.getLatenessHistogram());
+        feedbackThread = new HandlerThread("EyeBlinkerFeedback");
+        feedbackThread.start();
+        feedbackHandler = new Handler(feedbackThread.getLooper());
+        feedbackSink = new VibratorFeedbackSink(this, (Vibrator) getSystemService(Context.VIBRATOR_SERVICE),
+                mainThreadHandler, metrics);
+        feedbackDispatcher = new FeedbackDispatcher(SystemClock::elapsedRealtime,
+                new HandlerWakeupScheduler(feedbackHandler, () -> feedbackDispatcher.onWakeup()), feedbackSink);
+        screenStateSource = new BroadcastScreenStateSource(this, mainThreadHandler);
+        notificationManager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        phaseNotifier = new PhaseNotifier(this::postNotification);
+        ioExecutor = Executors.newSingleThreadExecutor();
+        sessionJournal = new SessionJournal(new File(getFilesDir(), JOURNAL_FILE_NAME), ioExecutor, SessionJournal.DEFAULT_BATCH_RECORDS);
+        ioExecutor.execute(this::loadSessionStats);
+        snapshotFile = new File(getFilesDir(), SNAPSHOT_FILE_NAME);
+        // Starts reading the preferences now, so they are usually there by the time a restart needs them
+        configStore = ConfigStore.get(this);
         createNotificationChannel();
     }
 
@@ -79,155 +127,353 @@ public class EyeBlinkerService extends Service {
     public int onStartCommand(Intent intent, int flags, int startId) {
         Log.d(TAG, "Service onStartCommand");
 
-        if (intent != null) {
-            int workTimeSec = intent.getIntExtra(EXTRA_WORK_TIME_SEC, DEFAULT_WORK_TIME_SERVICE_SEC);
-            int continuousVibrationSec = intent.getIntExtra(EXTRA_VIBRATION_TIME_SEC, DEFAULT_VIBRATION_DURATION_SEC);
-            int breakTimeSec = intent.getIntExtra(EXTRA_BREAK_TIME_SEC, DEFAULT_BREAK_REST_SERVICE_SEC);
+        BlinkerConfig newConfig = ConfigStore.fromExtras(intent);
+        if (intent != null && ACTION_RECONFIGURE.equals(intent.getAction())
+                && newConfig != null && cycleEngine.getPhase() != CycleEngine.Phase.IDLE) {
+            reconfigure(newConfig);
+            return START_STICKY;
+        }
 
-            currentWorkTimeMillis = workTimeSec * 1000L;
-            currentContinuousVibrationDurationMillis = continuousVibrationSec * 1000L;
-            currentBreakRestMillis = breakTimeSec * 1000L;
+        cycleEngine.stop();
+        screenStateSource.stop();
+        adaptivePolicy = null;
+        CycleSnapshot snapshot = null;
+
+        if (intent == null) {
+            // Restarted by the system after process death: pick up where the killed process left off.
+            // The snapshot is a single 64 byte read, cheap enough for the main thread.
+            long restoreStartNanos = SystemClock.elapsedRealtimeNanos();
+            snapshot = CycleSnapshot.read(snapshotFile);
+            if (snapshot != null && snapshot.phase != CycleEngine.Phase.IDLE) {
+                schedulePlan = snapshot.toPlan();
+                Log.d(TAG, "Intent was null in onStartCommand. Restored cycle snapshot in "
+                        + (SystemClock.elapsedRealtimeNanos() - restoreStartNanos) / 1000 + "us");
+            } else {
+                Log.w(TAG, "Intent was null in onStartCommand and no snapshot found. Using saved settings.");
+                snapshot = null;
+            }
+        }
+        Notification notification = createNotification(StatusText.notificationText(CycleEngine.Phase.IDLE), 0);
+        startForeground(NOTIFICATION_ID, notification);
 
-            Log.d(TAG, "Using times from intent: Work=" + currentWorkTimeMillis / 1000 + "s, " +
-                    "ContinuousVibeAfterWork=" + currentContinuousVibrationDurationMillis / 1000 + "s, " +
-                    "BreakRest=" + currentBreakRestMillis / 1000 + "s");
+        // The config MainActivity just saved comes with the intent (the service may run in its own process);
+        // after a restart it is read from the preferences off the main thread, and the cycle starts once it is there
+        int request = ++startRequest;
+        if (newConfig != null) {
+            startCycle(newConfig, snapshot);
         } else {
-            Log.w(TAG, "Intent was null in onStartCommand. Using service default times.");
-            currentWorkTimeMillis = DEFAULT_WORK_TIME_SERVICE_SEC * 1000L;
-            currentContinuousVibrationDurationMillis = DEFAULT_VIBRATION_DURATION_SEC * 1000L;
-            currentBreakRestMillis = DEFAULT_BREAK_REST_SERVICE_SEC * 1000L;
+            CycleSnapshot restored = snapshot;
+            configStore.load(config -> {
+                if (request == startRequest) startCycle(config, restored);
+            });
         }
+        return START_STICKY;
+    }
 
-        if (workTimer != null) workTimer.cancel();
-        if (breakRestTimer != null) breakRestTimer.cancel();
+    /** Starts a new cycle with {@code config}, or resumes {@code snapshot} if there is one. */
+    private void startCycle(BlinkerConfig config, CycleSnapshot snapshot) {
+        if (snapshot == null) {
+            schedulePlan = config.toSchedulePlan();
+            Log.d(TAG, "Using times from settings: " + config);
+        }
+        applyFeedbackSettings(config);
 
-        Notification notification = createNotification("Eye Blinker Active - Preparing...");
-        startForeground(NOTIFICATION_ID, notification);
-        startWorkCycle();
-        return START_STICKY;
+        phaseNotifier.reset();
+        if (snapshot != null) {
+            cycleEngine.resume(schedulePlan, snapshot.anchorForResume(bootWallMillis(), SystemClock.elapsedRealtime()));
+        } else {
+            cycleEngine.start(schedulePlan);
+        }
+        if (config.adaptive) {
+            adaptivePolicy = new AdaptiveWorkPolicy(SystemClock::elapsedRealtime, cycleEngine);
+            screenStateSource.start(adaptivePolicy);
+        }
     }
 
     /**
-     * Triggers a vibration feedback based on the specified type.
-     * @param type The type of vibration to play.
-     * @param toastMessage The message to display in a Toast.
+     * Applies new settings to the running cycle: the current phase keeps its progress and is
+     * re-armed with the new durations (see {@link CycleEngine#reconfigure}). The wakeup is only
+     * re-scheduled and the notification updated; the service stays in the foreground as it is.
      */
-    private void triggerVibrationFeedback(VibrationFeedbackType type, String toastMessage) {
-        if (vibrator == null || !vibrator.hasVibrator()) {
-            Log.w(TAG, "No vibrator available or permission missing.");
-            if (toastMessage != null && !toastMessage.isEmpty()) {
-                mainThreadHandler.post(() -> Toast.makeText(EyeBlinkerService.this, toastMessage, Toast.LENGTH_SHORT).show());
-            }
-            return;
+    private void reconfigure(BlinkerConfig config) {
+        Log.d(TAG, "Reconfiguring running cycle: " + config);
+        schedulePlan = config.toSchedulePlan();
+        applyFeedbackSettings(config);
+        reconfiguring = true;
+        try {
+            if (!cycleEngine.reconfigure(schedulePlan)) Log.d(TAG, "Plan changed, cycle started over");
+        } finally {
+            reconfiguring = false;
+        }
+        // A paused phase takes the new durations silently, without a phase change that would save them
+        if (cycleEngine.getPhase() == CycleEngine.Phase.PAUSED) saveSnapshot();
+        if (config.adaptive && adaptivePolicy == null) {
+            adaptivePolicy = new AdaptiveWorkPolicy(SystemClock::elapsedRealtime, cycleEngine);
+            screenStateSource.start(adaptivePolicy);
+        } else if (!config.adaptive && adaptivePolicy != null) {
+            screenStateSource.stop();
+            adaptivePolicy = null;
+            cycleEngine.resumeWork(false); // No-op unless paused
+            cycleEngine.releaseBreak(); // No-op unless a break is held
         }
+    }
 
-        VibrationEffect effect = null;
-        String logMessageDetails = "";
+    /** Compiles the alert patterns and sets the catch-up policy for {@code config}. */
+    private void applyFeedbackSettings(BlinkerConfig config) {
+        feedbackSink.prepare(hapticLibrary.register(HapticLibrary.BACK_TO_WORK, config.backToWorkPattern));
+        feedbackSink.prepare(hapticLibrary.register(HapticLibrary.CATCH_UP, HapticLibrary.CATCH_UP_SOURCE));
+        cycleEngine.setCatchUpPolicy(config.catchUp);
+        for (HapticPattern pattern : hapticLibrary.registerBreakStarts(schedulePlan)) feedbackSink.prepare(pattern);
+    }
 
-        if (type == VibrationFeedbackType.CONTINUOUS_AFTER_WORK) {
-            if (currentContinuousVibrationDurationMillis <= 0) { // Ensure duration is positive
-                Log.w(TAG, "Continuous vibration duration is zero or negative, skipping vibration.");
-                if (toastMessage != null && !toastMessage.isEmpty()) { // Still show toast
-                    mainThreadHandler.post(() -> Toast.makeText(EyeBlinkerService.this, toastMessage, Toast.LENGTH_SHORT).show());
-                }
-                return;
+    /**
+     * Called by the cycle engine at every phase boundary - the only time the service wakes up.
+     * @param phase The phase that just started.
+     * @param previous The phase that just ended.
+     * @param phaseEndElapsed When the new phase ends (elapsedRealtime time base).
+     */
+    @Override
+    public void onPhaseStarted(CycleEngine.Phase phase, CycleEngine.Phase previous, long phaseEndElapsed) {
+        // Both break segments count down to the end of the break, so the vibration ending posts nothing
+        long countdownEndElapsed = cycleEngine.getCountdownEndElapsed();
+        if (reconfiguring && phase == previous) {
+            // Same phase with a new end: nothing to journal, just show and persist the new deadline
+            if (phase != CycleEngine.Phase.WORK) {
+                currentBreakRestMillis = cycleEngine.getCurrentBreakMillis();
+                breakEndElapsed = countdownEndElapsed;
             }
-            logMessageDetails = "Playing continuous vibration after work (" + currentContinuousVibrationDurationMillis / 1000.0 + "s).";
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                effect = VibrationEffect.createOneShot(currentContinuousVibrationDurationMillis, VibrationEffect.DEFAULT_AMPLITUDE);
-            } else {
-                // Legacy API for one-shot
-                Log.d(TAG, logMessageDetails + " Message: " + toastMessage);
-                vibrator.vibrate(currentContinuousVibrationDurationMillis);
-                if (toastMessage != null && !toastMessage.isEmpty()) {
-                    mainThreadHandler.post(() -> Toast.makeText(EyeBlinkerService.this, toastMessage, Toast.LENGTH_SHORT).show());
+            updateNotification(StatusText.notificationText(phase), countdownEndElapsed);
+            saveSnapshot();
+            publishState(new ServiceState(true, phase, countdownEndElapsed));
+            return;
+        }
+        switch (phase) {
+            case WORK:
+                long workMillis = cycleEngine.getCurrentWorkMillis();
+                Log.d(TAG, "Starting work cycle for " + workMillis / 1000 + "s");
+                long now = System.currentTimeMillis();
+                // A held break or a catch-up can go straight from the vibration to work; a break cut
+                // short by a restart of the plan is not over and counts as interrupted
+                boolean fromBreak = previous == CycleEngine.Phase.BREAK || previous == CycleEngine.Phase.BREAK_VIBRATING;
+                if (fromBreak && SystemClock.elapsedRealtime() >= breakEndElapsed) {
+                    recordEvent(SessionJournal.Event.BREAK_END, now, (int) currentBreakRestMillis);
                 }
-                return; // Vibration started, return
-            }
-        } else if (type == VibrationFeedbackType.INTERVAL_BACK_TO_WORK) {
-            logMessageDetails = "Playing 'back to work' interval pattern (approx 5s).";
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                effect = VibrationEffect.createWaveform(BACK_TO_WORK_INTERVAL_PATTERN, -1); // -1 for no repeat
-            } else {
-                // Legacy API for pattern
-                Log.d(TAG, logMessageDetails + " Message: " + toastMessage);
-                vibrator.vibrate(BACK_TO_WORK_INTERVAL_PATTERN, -1);
-                if (toastMessage != null && !toastMessage.isEmpty()) {
-                    mainThreadHandler.post(() -> Toast.makeText(EyeBlinkerService.this, toastMessage, Toast.LENGTH_SHORT).show());
+                if (previous == CycleEngine.Phase.PAUSED) {
+                    boolean credited = adaptivePolicy != null && adaptivePolicy.isLastPauseCredited();
+                    recordEvent(SessionJournal.Event.WORK_RESUME, now, credited ? 1 : 0);
+                } else {
+                    recordEvent(SessionJournal.Event.WORK_START, now, (int) workMillis);
                 }
-                return; // Vibration started, return
-            }
+                updateNotification(StatusText.notificationText(phase), countdownEndElapsed);
+                break;
+            case PAUSED:
+                Log.d(TAG, "Screen off, pausing work timing");
+                recordEvent(SessionJournal.Event.WORK_PAUSE, System.currentTimeMillis(), 0);
+                updateNotification(StatusText.notificationText(phase), 0);
+                // A restart resumes with the work time left at the pause, not the paused time counted as work
+                saveSnapshot();
+                publishState(new ServiceState(true, phase, phaseEndElapsed));
+                return;
+            case BREAK_VIBRATING:
+            case BREAK:
+                currentBreakRestMillis = cycleEngine.getCurrentBreakMillis();
+                breakEndElapsed = countdownEndElapsed;
+                // Also when resumed into a break after a restart: its start may not have reached the journal
+                if (previous == CycleEngine.Phase.WORK || previous == CycleEngine.Phase.IDLE) {
+                    Log.d(TAG, "Starting break rest for " + currentBreakRestMillis / 1000 + "s");
+                    recordEvent(SessionJournal.Event.BREAK_START, System.currentTimeMillis(), (int) currentBreakRestMillis);
+                }
+                updateNotification(StatusText.notificationText(phase), countdownEndElapsed);
+                break;
+            default:
+                break;
         }
+        saveSnapshot();
+        publishState(new ServiceState(true, phase, countdownEndElapsed));
+        // Last: may pause the work phase that just started, which re-enters this method
+        if (adaptivePolicy != null) adaptivePolicy.onPhaseStarted(phase);
+    }
 
-        // For Android O and above, effect will be non-null if one was created
-        if (effect != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            Log.d(TAG, logMessageDetails + " Message: " + toastMessage);
-            vibrator.vibrate(effect);
-        } else if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O && type == null) {
-            // Should not happen with current logic, but a fallback log
-            Log.w(TAG, "Vibration type not handled for legacy Android or effect is null.");
-        }
+    /** Persists the cycle position so a restart after process death can resume it. */
+    private void saveSnapshot() {
+        CycleSnapshot snapshot = CycleSnapshot.of(cycleEngine, bootWallMillis());
+        ioExecutor.execute(() -> {
+            try {
+                snapshot.write(snapshotFile);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to write cycle snapshot", e);
+            }
+        });
+    }
 
+    /** @return Wall-clock time of boot, used to carry the elapsedRealtime anchor across reboots. */
+    private static long bootWallMillis() {
+        return System.currentTimeMillis() - SystemClock.elapsedRealtime();
+    }
 
-        if (toastMessage != null && !toastMessage.isEmpty()) {
-            // Toast for API O+ (legacy handles its own toast before returning)
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O || (effect == null && type != null)) {
-                mainThreadHandler.post(() -> Toast.makeText(EyeBlinkerService.this, toastMessage, Toast.LENGTH_SHORT).show());
-            }
+    /**
+     * Called by the cycle engine when a transition carries an alert.
+     * @param type The alert to play.
+     */
+    @Override
+    public void onFeedback(VibrationFeedbackType type) {
+        recordEvent(SessionJournal.Event.VIBRATION_FIRED, System.currentTimeMillis(), type.ordinal());
+        FeedbackDispatcher.Alert alert;
+        if (type == VibrationFeedbackType.CONTINUOUS_AFTER_WORK) {
+            Log.d(TAG, "Work time finished. Signaling start of break with continuous vibration.");
+            // Never vibrate past the end of a short break (e.g. the 20s eye rest)
+            long durationMillis = Math.min(schedulePlan.getVibrationMillis(), cycleEngine.getCurrentBreakMillis());
+            alert = new FeedbackDispatcher.Alert(type, breakPattern(durationMillis), "Break Time! Vibrating as configured.");
+        } else if (type == VibrationFeedbackType.CATCH_UP_SUMMARY) {
+            boolean working = cycleEngine.getPhase() == CycleEngine.Phase.WORK;
+            alert = new FeedbackDispatcher.Alert(type, hapticLibrary.get(HapticLibrary.CATCH_UP),
+                    "Missed " + missedBoundaries + " phase changes while the phone slept. "
+                            + (working ? "Back to work!" : "Take your break!"));
+        } else {
+            Log.d(TAG, "Break rest finished. Signaling 'back to work' with interval pattern.");
+            alert = new FeedbackDispatcher.Alert(type, hapticLibrary.get(HapticLibrary.BACK_TO_WORK),
+                    "Rest over! Back to work (interval pattern).");
         }
+        feedbackHandler.post(() -> feedbackDispatcher.submit(alert));
     }
 
+    /**
+     * Called by the cycle engine when a wakeup arrived after several phase boundaries (Doze, suspend).
+     * The engine jumps straight to the current phase; at most one alert follows, per the configured policy.
+     */
+    @Override
+    public void onCatchUp(long missedBoundaries) {
+        Log.d(TAG, "Caught up over " + missedBoundaries + " missed phase boundaries");
+        this.missedBoundaries = missedBoundaries;
+    }
 
-    private void startWorkCycle() {
-        Log.d(TAG, "Starting work cycle for " + currentWorkTimeMillis / 1000 + "s");
-        updateNotification("Status: Working...");
-        if (workTimer != null) workTimer.cancel();
-        workTimer = new CountDownTimer(currentWorkTimeMillis, 1000) {
-            @Override
-            public void onTick(long millisUntilFinished) {
-                updateNotification("Working: " + formatTime(millisUntilFinished));
-            }
-
-            @Override
-            public void onFinish() {
-                Log.d(TAG, "Work time finished. Signaling start of break with continuous vibration.");
-                triggerVibrationFeedback(VibrationFeedbackType.CONTINUOUS_AFTER_WORK, "Break Time! Vibrating as configured.");
-                startBreakRestTimer();
-            }
-        }.start();
+    /**
+     * @return The break-start vibration of {@code durationMillis}, precompiled for every length of the
+     *         plan in {@link #applyFeedbackSettings}; only built here if the plan and the alert disagree.
+     */
+    private HapticPattern breakPattern(long durationMillis) {
+        HapticPattern pattern = hapticLibrary.getBreakStart(durationMillis);
+        if (pattern == null) {
+            Log.w(TAG, "Break vibration of " + durationMillis + "ms was not precompiled");
+            pattern = HapticPattern.oneShot(durationMillis);
+            feedbackSink.prepare(pattern);
+        }
+        return pattern;
     }
 
-    private void startBreakRestTimer() {
-        Log.d(TAG, "Starting break rest for " + currentBreakRestMillis / 1000 + "s");
-        updateNotification("Status: Break Time...");
-        if (breakRestTimer != null) breakRestTimer.cancel();
-        breakRestTimer = new CountDownTimer(currentBreakRestMillis, 1000) {
-            @Override
-            public void onTick(long millisUntilFinished) {
-                updateNotification("Break Rest: " + formatTime(millisUntilFinished));
+    /**
+     * Appends an event to the session journal and feeds it to the daily / weekly stats.
+     * Called on the main thread; all file work happens on {@link #ioExecutor}.
+     */
+    private void recordEvent(SessionJournal.Event event, long timestampMillis, int value) {
+        sessionJournal.append(event, timestampMillis, value);
+        boolean saveStats = event == SessionJournal.Event.BREAK_END || event == SessionJournal.Event.SERVICE_STOP;
+        // The process is usually killed rather than destroyed: write the journal out before the
+        // stats snapshot that counts its records (same single I/O thread, so in this order)
+        if (saveStats) sessionJournal.flush();
+        ioExecutor.execute(() -> {
+            if (sessionStats == null) return;
+            sessionStats.accept(event, timestampMillis, value);
+            // The snapshot only lets MainActivity show stats instantly; the journal stays the source of truth
+            if (saveStats) {
+                try {
+                    sessionStats.save(new File(getFilesDir(), STATS_FILE_NAME));
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to save session stats", e);
+                }
             }
+        });
+    }
 
-            @Override
-            public void onFinish() {
-                Log.d(TAG, "Break rest finished. Signaling 'back to work' with interval pattern.");
-                triggerVibrationFeedback(VibrationFeedbackType.INTERVAL_BACK_TO_WORK, "Rest over! Back to work (interval pattern).");
-                startWorkCycle();
-            }
-        }.start();
+    private void loadSessionStats() {
+        try {
+            sessionStats = SessionStats.load(new File(getFilesDir(), STATS_FILE_NAME), new File(getFilesDir(), JOURNAL_FILE_NAME),
+                    TimeZone.getDefault().getOffset(System.currentTimeMillis()));
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to load session stats, starting empty", e);
+            sessionStats = new SessionStats(TimeZone.getDefault().getOffset(System.currentTimeMillis()));
+        }
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
         Log.d(TAG, "Service onDestroy");
-        if (workTimer != null) workTimer.cancel();
-        if (breakRestTimer != null) breakRestTimer.cancel();
-        if (vibrator != null) vibrator.cancel();
+        startRequest++; // A start still waiting for the config must not run after this
+        if (screenStateSource != null) screenStateSource.stop();
+        if (cycleEngine != null) {
+            Log.d(TAG, "Phase boundary lateness: " + cycleEngine.getLatenessHistogram());
+            cycleEngine.stop();
+        }
+        publishState(ServiceState.STOPPED);
+        if (sessionJournal != null) {
+            recordEvent(SessionJournal.Event.SERVICE_STOP, System.currentTimeMillis(), 0);
+            sessionJournal.close(); // Queued writes still run after shutdown()
+        }
+        if (ioExecutor != null) {
+            // Stopped on purpose, nothing to resume
+            ioExecutor.execute(() -> snapshotFile.delete());
+        }
+        if (ioExecutor != null) ioExecutor.shutdown();
+        if (feedbackThread != null) {
+            // Runs before the thread quits: stops the running vibration and drops queued alerts
+            feedbackHandler.post(feedbackDispatcher::cancel);
+            feedbackThread.quitSafely();
+        }
         stopForeground(true);
         mainThreadHandler.post(() -> Toast.makeText(EyeBlinkerService.this, "Eye Blinker Service Stopped", Toast.LENGTH_SHORT).show());
     }
 
-    @Nullable @Override public IBinder onBind(Intent intent) { return null; }
+    @Nullable @Override public IBinder onBind(Intent intent) { return messenger.getBinder(); }
+
+    /** {@code adb shell dumpsys activity service com.example.eye/.EyeBlinkerService} */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        // Runs on a binder thread: the engine belongs to the main thread, so report the last published phase
+        SchedulePlan plan = schedulePlan;
+        writer.println("Phase: " + currentState.phase + ", plan: " + (plan != null ? plan.getPreset() : "none"));
+        metrics.dump(writer);
+    }
+
+    private boolean handleClientMessage(Message msg) {
+        switch (msg.what) {
+            case MSG_REGISTER_CLIENT:
+                if (msg.replyTo == null) return true;
+                clients.add(msg.replyTo);
+                sendState(msg.replyTo, currentState);
+                return true;
+            case MSG_UNREGISTER_CLIENT:
+                clients.remove(msg.replyTo);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** Sends the new state to every bound client. Only happens on phase changes, never per second. */
+    private void publishState(ServiceState state) {
+        currentState = state;
+        for (int i = clients.size() - 1; i >= 0; i--) {
+            if (!sendState(clients.get(i), state)) clients.remove(i);
+        }
+    }
+
+    /** @return false if the client is gone. */
+    private static boolean sendState(Messenger client, ServiceState state) {
+        Message msg = Message.obtain(null, MSG_STATE, state.running ? 1 : 0, state.phase.ordinal());
+        msg.getData().putLong(KEY_PHASE_END_ELAPSED, state.phaseEndElapsed);
+        try {
+            client.send(msg);
+            return true;
+        } catch (RemoteException e) {
+            return false;
+        }
+    }
+
+    /** Decodes a {@link #MSG_STATE} message on the client side. */
+    public static ServiceState readState(Message msg) {
+        return new ServiceState(msg.arg1 != 0, CycleEngine.Phase.values()[msg.arg2], msg.getData().getLong(KEY_PHASE_END_ELAPSED));
+    }
 
     private void createNotificationChannel() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
@@ -237,27 +483,46 @@ public class EyeBlinkerService extends Service {
         }
     }
 
-    private Notification createNotification(String contentText) {
-        Intent notificationIntent = new Intent(this, MainActivity.class);
-        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, notificationIntent, PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
-        return new NotificationCompat.Builder(this, NOTIFICATION_CHANNEL_ID)
-                .setContentTitle("Eye Blinker")
-                .setContentText(contentText)
-                .setSmallIcon(R.drawable.ic_eye_notification) // Ensure this drawable exists
-                .setContentIntent(pendingIntent)
-                .setOngoing(true)
-                .setOnlyAlertOnce(true)
-                .build();
+    /**
+     * Builds the notification from the cached builder.
+     * @param contentText Status line to show.
+     * @param phaseEndElapsed End of the current phase (elapsedRealtime time base); the notification
+     *                        counts down to it on its own. 0 shows no countdown.
+     */
+    private Notification createNotification(String contentText, long phaseEndElapsed) {
+        if (notificationBuilder == null) {
+            // Launcher intent instead of MainActivity.class: in the :timer process the class literal
+            // would load the activity and with it the AppCompat / Material classes
+            Intent notificationIntent = getPackageManager().getLaunchIntentForPackage(getPackageName());
+            PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, notificationIntent, PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+            notificationBuilder = new NotificationCompat.Builder(this, NOTIFICATION_CHANNEL_ID)
+                    .setContentTitle("Eye Blinker")
+                    .setSmallIcon(R.drawable.ic_eye_notification) // Ensure this drawable exists
+                    .setContentIntent(pendingIntent)
+                    .setOngoing(true)
+                    .setOnlyAlertOnce(true);
+        }
+        boolean countdown = phaseEndElapsed > 0;
+        notificationBuilder.setContentText(contentText)
+                .setShowWhen(countdown)
+                .setUsesChronometer(countdown)
+                .setChronometerCountDown(countdown);
+        if (countdown) {
+            // The chronometer works on wall-clock time, so convert the elapsedRealtime deadline
+            notificationBuilder.setWhen(System.currentTimeMillis() + (phaseEndElapsed - SystemClock.elapsedRealtime()));
+        }
+        return notificationBuilder.build();
     }
 
-    private void updateNotification(String contentText) {
-        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        if (manager != null) manager.notify(NOTIFICATION_ID, createNotification(contentText));
+    private void updateNotification(String contentText, long phaseEndElapsed) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        phaseNotifier.update(contentText, phaseEndElapsed);
+        metrics.notificationMicros.record((SystemClock.elapsedRealtimeNanos() - startNanos) / 1000);
     }
 
-    private String formatTime(long millisUntilFinished) {
-        long seconds = (millisUntilFinished / 1000) % 60;
-        long minutes = (millisUntilFinished / (1000 * 60)) % 60;
-        return String.format("%02d:%02d", minutes, seconds);
+    private void postNotification(String contentText, long phaseEndElapsed) {
+        if (notificationManager == null) return;
+        notificationManager.notify(NOTIFICATION_ID, createNotification(contentText, phaseEndElapsed));
+        metrics.notificationPosts.incrementAndGet();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package com.example.eye;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * {@link WakeupScheduler} on a plain Handler, for short in-process timeouts that do not need to
+ * wake the device (e.g. the end of a running vibration).
+ */
+final class HandlerWakeupScheduler implements WakeupScheduler {
+
+    private final Handler handler;
+    private final Runnable onWakeup;
+
+    HandlerWakeupScheduler(Handler handler, Runnable onWakeup) {
+        this.handler = handler;
+        this.onWakeup = onWakeup;
+    }
+
+    @Override
+    public void scheduleWakeup(long triggerAtElapsedMillis) {
+        handler.removeCallbacks(onWakeup);
+        handler.postDelayed(onWakeup, Math.max(0, triggerAtElapsedMillis - SystemClock.elapsedRealtime()));
+    }
+
+    @Override
+    public void cancelWakeup() {
+        handler.removeCallbacks(onWakeup);
+    }
+}
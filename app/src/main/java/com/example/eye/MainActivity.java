@@ -4,51 +4,86 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.content.ContextCompat;
 
-import android.content.Context;
+import android.content.ComponentName;
 import android.content.Intent;
-import android.content.SharedPreferences;
+import android.content.ServiceConnection;
 import android.os.Build;
 import android.os.Bundle;
-import android.text.TextUtils;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+import android.os.SystemClock;
 import android.util.Log; // Import Log for debugging
+import android.view.Choreographer;
 import android.view.View;
+import android.widget.RadioGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import com.google.android.material.button.MaterialButton;
+import com.google.android.material.materialswitch.MaterialSwitch;
 import com.google.android.material.textfield.TextInputEditText;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity"; // For logging
 
-    // Preference Keys (values stored in SECONDS)
-    private static final String PREFS_NAME = "EyeBlinkerPrefs";
-    private static final String KEY_WORK_TIME = "workTime";     // Stored in seconds
-    private static final String KEY_BREAK_TIME = "breakTime";   // Stored in seconds
-    private static final String KEY_VIBRATION_TIME = "vibrationTime"; // Stored in seconds
-
-    // Default values (input for UI is in minutes for work/break, seconds for vibration)
-    // These are converted to seconds for storage.
-    private static final int DEFAULT_WORK_TIME_MIN = 20; // Default work time in minutes for UI
-    private static final int DEFAULT_BREAK_TIME_MIN = 2;  // Default break time in minutes for UI
-    private static final int DEFAULT_VIBRATION_TIME_SEC = 20; // Default vibration time in seconds
-
     private TextInputEditText workTimeEditText;     // Expects minutes
     private TextInputEditText breakTimeEditText;    // Expects minutes
     private TextInputEditText vibrationTimeEditText; // Expects seconds
+    private TextInputEditText backToWorkPatternEditText; // HapticPattern text
+    private MaterialSwitch adaptiveSwitch;
+    private RadioGroup planRadioGroup;
+    private RadioGroup catchUpRadioGroup;
     private MaterialButton startStopButton;
+    private MaterialButton applyButton; // Visible while the service runs
     private TextView statusTextView;
     private TextView timeTextView;
+    private TextView statsTextView;
     private Toolbar toolbar;
 
+    // Disk reads (stats snapshot) happen here, off the UI thread
+    private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor();
+
+    // Settings are loaded in the background and shared with the service through this store
+    private ConfigStore configStore;
+
     private boolean isServiceRunning = false;
 
-    // Keys for Intent Extras (values sent to service in SECONDS)
-    public static final String EXTRA_WORK_TIME_SEC = "com.example.eye.WORK_TIME_SEC";
-    public static final String EXTRA_VIBRATION_TIME_SEC = "com.example.eye.VIBRATION_TIME_SEC";
-    public static final String EXTRA_BREAK_TIME_SEC = "com.example.eye.BREAK_TIME_SEC";
+    // Live service state: the service sends a message only on phase changes, we render the countdown ourselves
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
+    private final Messenger clientMessenger = new Messenger(new Handler(Looper.getMainLooper(), this::handleServiceMessage));
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> this.stateCoalescer.onFrame();
+    private final StateCoalescer stateCoalescer = new StateCoalescer(
+            () -> Choreographer.getInstance().postFrameCallback(frameCallback), this::renderState);
+    private final Runnable countdownTick = this::renderCountdown;
+    private final CountdownFormatter countdownFormatter = new CountdownFormatter();
+    private Messenger serviceMessenger;
+    private ServiceState serviceState = ServiceState.STOPPED;
+
+    private final ServiceConnection serviceConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder service) {
+            serviceMessenger = new Messenger(service);
+            sendToService(EyeBlinkerService.MSG_REGISTER_CLIENT);
+        }
 
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            // Service process died; it reconnects by itself if the system restarts it
+            serviceMessenger = null;
+            stateCoalescer.offer(ServiceState.STOPPED);
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -61,10 +96,19 @@ public class MainActivity extends AppCompatActivity {
         workTimeEditText = findViewById(R.id.workTimeEditText);
         breakTimeEditText = findViewById(R.id.breakTimeEditText);
         vibrationTimeEditText = findViewById(R.id.vibrationTimeEditText);
+        backToWorkPatternEditText = findViewById(R.id.backToWorkPatternEditText);
+        adaptiveSwitch = findViewById(R.id.adaptiveSwitch);
+        planRadioGroup = findViewById(R.id.planRadioGroup);
+        planRadioGroup.setOnCheckedChangeListener((group, checkedId) -> updatePlanFields());
+        catchUpRadioGroup = findViewById(R.id.catchUpRadioGroup);
         startStopButton = findViewById(R.id.startStopButton);
+        applyButton = findViewById(R.id.applyButton);
+        applyButton.setOnClickListener(v -> reconfigureEyeBlinkerService());
         statusTextView = findViewById(R.id.statusTextView);
         timeTextView = findViewById(R.id.timeTextView);
+        statsTextView = findViewById(R.id.statsTextView);
 
+        configStore = ConfigStore.get(this);
         loadPreferences(); // Load and display preferences
         updateButtonUI();
 
@@ -81,66 +125,190 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
-    private void loadPreferences() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-
-        // Load work time (stored in seconds), convert to minutes for UI
-        int workTimeSec = prefs.getInt(KEY_WORK_TIME, DEFAULT_WORK_TIME_MIN * 60);
-        workTimeEditText.setText(String.valueOf(workTimeSec / 60));
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // Flags 0: observe the service if it runs, without creating it or keeping it alive
+        bindService(new Intent(this, EyeBlinkerService.class), serviceConnection, 0);
+        stateCoalescer.setActive(true);
+    }
 
-        // Load break time (stored in seconds), convert to minutes for UI
-        int breakTimeSec = prefs.getInt(KEY_BREAK_TIME, DEFAULT_BREAK_TIME_MIN * 60);
-        breakTimeEditText.setText(String.valueOf(breakTimeSec / 60));
+    @Override
+    protected void onStop() {
+        super.onStop();
+        stateCoalescer.setActive(false);
+        uiHandler.removeCallbacks(countdownTick);
+        sendToService(EyeBlinkerService.MSG_UNREGISTER_CLIENT);
+        unbindService(serviceConnection);
+        serviceMessenger = null;
+    }
 
-        // Load vibration time (stored and displayed in seconds)
-        int vibrationTimeSec = prefs.getInt(KEY_VIBRATION_TIME, DEFAULT_VIBRATION_TIME_SEC);
-        vibrationTimeEditText.setText(String.valueOf(vibrationTimeSec));
+    private void sendToService(int what) {
+        if (serviceMessenger == null) return;
+        Message msg = Message.obtain(null, what);
+        msg.replyTo = clientMessenger;
+        try {
+            serviceMessenger.send(msg);
+        } catch (RemoteException e) {
+            Log.w(TAG, "Service went away", e);
+        }
+    }
 
-        Log.d(TAG, "Loaded Preferences: Work (min): " + (workTimeSec / 60) +
-                ", Break (min): " + (breakTimeSec / 60) +
-                ", Vibration (sec): " + vibrationTimeSec);
+    private boolean handleServiceMessage(Message msg) {
+        if (msg.what != EyeBlinkerService.MSG_STATE) return false;
+        stateCoalescer.offer(EyeBlinkerService.readState(msg));
+        return true;
     }
 
-    private boolean savePreferences() {
-        String workTimeMinStr = workTimeEditText.getText().toString();
-        String breakTimeMinStr = breakTimeEditText.getText().toString();
-        String vibrationTimeSecStr = vibrationTimeEditText.getText().toString();
+    /** Called at most once per frame, only while the activity is visible. */
+    private void renderState(ServiceState state) {
+        serviceState = state;
+        isServiceRunning = state.running;
+        updateButtonUI();
+        uiHandler.removeCallbacks(countdownTick);
+        if (state.running) {
+            statusTextView.setText("Status: Service Running");
+            renderCountdown();
+        } else {
+            statusTextView.setText("Status: Stopped");
+            timeTextView.setText("Health is Everything");
+        }
+    }
 
-        if (TextUtils.isEmpty(workTimeMinStr) || TextUtils.isEmpty(breakTimeMinStr) || TextUtils.isEmpty(vibrationTimeSecStr)) {
-            Toast.makeText(this, "Please fill all time fields", Toast.LENGTH_SHORT).show();
-            return false;
+    /** Shows the time left in the current phase and re-arms itself for the next whole second. */
+    private void renderCountdown() {
+        long remaining = Math.max(0, serviceState.phaseEndElapsed - SystemClock.elapsedRealtime());
+        // Reused buffer, no String per tick
+        int length = countdownFormatter.format(serviceState.phase, remaining);
+        timeTextView.setText(countdownFormatter.getBuffer(), 0, length);
+        if (remaining > 0 && serviceState.phase != CycleEngine.Phase.PAUSED) {
+            uiHandler.postDelayed(countdownTick, remaining % 1000 + 1);
         }
+    }
 
-        try {
-            int workTimeMin = Integer.parseInt(workTimeMinStr);
-            int breakTimeMin = Integer.parseInt(breakTimeMinStr);
-            int vibrationTimeSec = Integer.parseInt(vibrationTimeSecStr);
+    @Override
+    protected void onResume() {
+        super.onResume();
+        loadStats();
+    }
 
-            if (workTimeMin <= 0 || breakTimeMin <= 0 || vibrationTimeSec <= 0) {
-                Toast.makeText(this, "Time values must be positive", Toast.LENGTH_SHORT).show();
-                return false;
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        backgroundExecutor.shutdown();
+    }
+
+    /**
+     * Loads today's and this week's rollups in the background and shows them.
+     * Normally this is a single small snapshot read; the journal is only replayed if the snapshot is missing.
+     */
+    private void loadStats() {
+        File filesDir = getFilesDir();
+        backgroundExecutor.execute(() -> {
+            long now = System.currentTimeMillis();
+            try {
+                SessionStats stats = SessionStats.load(new File(filesDir, EyeBlinkerService.STATS_FILE_NAME),
+                        new File(filesDir, EyeBlinkerService.JOURNAL_FILE_NAME), TimeZone.getDefault().getOffset(now));
+                int today = stats.dayIndex(now);
+                int week = SessionStats.weekIndex(today);
+                String text = "Today: " + formatDuration(stats.getDayWorkMillis(today)) + " work, "
+                        + stats.getDayBreaksCompleted(today) + " breaks"
+                        + (stats.getDayBreaksInterrupted(today) > 0 ? " (" + stats.getDayBreaksInterrupted(today) + " interrupted)" : "")
+                        + "\nThis week: " + formatDuration(stats.getWeekWorkMillis(week)) + " work, "
+                        + stats.getWeekBreaksCompleted(week) + " breaks, best streak " + stats.getWeekLongestStreak(week);
+                runOnUiThread(() -> statsTextView.setText(text));
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to load session stats", e);
             }
+        });
+    }
+
+    private static String formatDuration(long millis) {
+        long minutes = millis / (60 * 1000);
+        return minutes / 60 + "h " + String.format("%02d", minutes % 60) + "m";
+    }
+
+    private void loadPreferences() {
+        // Work/break are stored in seconds but shown in minutes; vibration is shown in seconds
+        configStore.load(config -> {
+            workTimeEditText.setText(String.valueOf(config.workTimeSec / 60));
+            breakTimeEditText.setText(String.valueOf(config.breakTimeSec / 60));
+            vibrationTimeEditText.setText(String.valueOf(config.vibrationTimeSec));
+            backToWorkPatternEditText.setText(config.backToWorkPattern);
+            adaptiveSwitch.setChecked(config.adaptive);
+            planRadioGroup.check(planButtonId(config.plan));
+            catchUpRadioGroup.check(catchUpButtonId(config.catchUp));
+            Log.d(TAG, "Loaded Preferences: " + config);
+        });
+    }
+
+    private SchedulePlan.Preset selectedPlan() {
+        int checked = planRadioGroup.getCheckedRadioButtonId();
+        if (checked == R.id.planPomodoro) return SchedulePlan.Preset.POMODORO;
+        if (checked == R.id.planEyeRest) return SchedulePlan.Preset.EYE_REST;
+        return SchedulePlan.Preset.CUSTOM;
+    }
+
+    private static int planButtonId(SchedulePlan.Preset plan) {
+        switch (plan) {
+            case POMODORO:
+                return R.id.planPomodoro;
+            case EYE_REST:
+                return R.id.planEyeRest;
+            default:
+                return R.id.planCustom;
+        }
+    }
+
+    private CycleEngine.CatchUpPolicy selectedCatchUp() {
+        int checked = catchUpRadioGroup.getCheckedRadioButtonId();
+        if (checked == R.id.catchUpSkip) return CycleEngine.CatchUpPolicy.SKIP;
+        if (checked == R.id.catchUpReplay) return CycleEngine.CatchUpPolicy.REPLAY_LAST;
+        return CycleEngine.CatchUpPolicy.SINGLE_SUMMARY;
+    }
 
-            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            SharedPreferences.Editor editor = prefs.edit();
-
-            // Convert minutes to seconds for storage
-            editor.putInt(KEY_WORK_TIME, workTimeMin * 60);
-            editor.putInt(KEY_BREAK_TIME, breakTimeMin * 60);
-            editor.putInt(KEY_VIBRATION_TIME, vibrationTimeSec); // Already in seconds
-            editor.apply();
-
-            Log.d(TAG, "Saved Preferences: Work (sec): " + (workTimeMin * 60) +
-                    ", Break (sec): " + (breakTimeMin * 60) +
-                    ", Vibration (sec): " + vibrationTimeSec);
-            return true;
-        } catch (NumberFormatException e) {
-            Toast.makeText(this, "Invalid number format", Toast.LENGTH_SHORT).show();
-            return false;
+    private static int catchUpButtonId(CycleEngine.CatchUpPolicy catchUp) {
+        switch (catchUp) {
+            case SKIP:
+                return R.id.catchUpSkip;
+            case REPLAY_LAST:
+                return R.id.catchUpReplay;
+            default:
+                return R.id.catchUpSummary;
+        }
+    }
+
+    /** Built-in plans have their own work and break times; only the vibration field applies to them. */
+    private void updatePlanFields() {
+        boolean custom = selectedPlan() == SchedulePlan.Preset.CUSTOM;
+        workTimeEditText.setEnabled(custom);
+        breakTimeEditText.setEnabled(custom);
+    }
+
+    /**
+     * Validates the form and saves it.
+     * @return The saved config, or null if the input was invalid (the user has been told why).
+     */
+    private BlinkerConfig savePreferences() {
+        try {
+            BlinkerConfig config = BlinkerConfig.parse(
+                    workTimeEditText.getText().toString(),
+                    breakTimeEditText.getText().toString(),
+                    vibrationTimeEditText.getText().toString())
+                    .withAdaptive(adaptiveSwitch.isChecked())
+                    .withPlan(selectedPlan())
+                    .withBackToWorkPattern(backToWorkPatternEditText.getText().toString())
+                    .withCatchUp(selectedCatchUp());
+            configStore.save(config);
+            return config;
+        } catch (IllegalArgumentException e) {
+            Toast.makeText(this, e.getMessage(), Toast.LENGTH_SHORT).show();
+            return null;
         }
     }
 
     private void updateButtonUI() {
+        applyButton.setVisibility(isServiceRunning ? View.VISIBLE : View.GONE);
         if (isServiceRunning) {
             startStopButton.setText("Stop Blinker");
             startStopButton.setIcon(ContextCompat.getDrawable(this, R.drawable.ic_stop_24));
@@ -151,33 +319,15 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void startEyeBlinkerService() {
-        if (!savePreferences()) { // Validate and save preferences before starting
+        BlinkerConfig config = savePreferences(); // Validate and save preferences before starting
+        if (config == null) {
             return;
         }
 
+        // Passed along because the service may run in its own process, without this ConfigStore cache
         Intent serviceIntent = new Intent(this, EyeBlinkerService.class);
-
-        // Get values from UI (work/break in minutes, vibration in seconds)
-        // Convert work/break times to SECONDS before sending to service
-        try {
-            int workTimeMin = Integer.parseInt(workTimeEditText.getText().toString());
-            int breakTimeMin = Integer.parseInt(breakTimeEditText.getText().toString());
-            int vibrationTimeSec = Integer.parseInt(vibrationTimeEditText.getText().toString());
-
-            serviceIntent.putExtra(EXTRA_WORK_TIME_SEC, workTimeMin * 60);
-            serviceIntent.putExtra(EXTRA_BREAK_TIME_SEC, breakTimeMin * 60);
-            serviceIntent.putExtra(EXTRA_VIBRATION_TIME_SEC, vibrationTimeSec);
-
-            Log.d(TAG, "Starting service with: Work (sec): " + (workTimeMin * 60) +
-                    ", Break (sec): " + (breakTimeMin * 60) +
-                    ", Vibration (sec): " + vibrationTimeSec);
-
-        } catch (NumberFormatException e) {
-            Toast.makeText(this, "Error parsing time values before starting service.", Toast.LENGTH_LONG).show();
-            Log.e(TAG, "NumberFormatException while preparing intent extras", e);
-            return; // Don't start service if parsing fails
-        }
-
+        ConfigStore.putExtras(serviceIntent, config);
+        Log.d(TAG, "Starting service with: " + config);
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             startForegroundService(serviceIntent);
@@ -185,15 +335,32 @@ public class MainActivity extends AppCompatActivity {
             startService(serviceIntent);
         }
 
+        // Shown right away; the countdown starts when the service publishes its first phase
         isServiceRunning = true;
         updateButtonUI();
         statusTextView.setText("Status: Service Running");
     }
 
+    /** Sends the edited settings to the running service, which applies them without starting over. */
+    private void reconfigureEyeBlinkerService() {
+        BlinkerConfig config = savePreferences();
+        if (config == null) {
+            return;
+        }
+        // Plain startService: the service is already in the foreground and must not be asked to call startForeground again
+        Intent serviceIntent = new Intent(this, EyeBlinkerService.class).setAction(EyeBlinkerService.ACTION_RECONFIGURE);
+        ConfigStore.putExtras(serviceIntent, config);
+        Log.d(TAG, "Reconfiguring service with: " + config);
+        startService(serviceIntent);
+        Toast.makeText(this, "Settings applied", Toast.LENGTH_SHORT).show();
+    }
+
     private void stopEyeBlinkerService() {
         Intent serviceIntent = new Intent(this, EyeBlinkerService.class);
         stopService(serviceIntent);
 
+        // Confirmed by the state stream once the service is gone
+        uiHandler.removeCallbacks(countdownTick);
         isServiceRunning = false;
         updateButtonUI();
         statusTextView.setText("Status: Stopped");
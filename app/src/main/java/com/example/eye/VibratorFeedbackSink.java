@@ -0,0 +1,88 @@
+package com.example.eye;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.util.Log;
+import android.widget.Toast;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link FeedbackDispatcher.Sink} that plays alerts on the device Vibrator and shows their toast.
+ * Runs on the feedback thread; toasts are posted to the main thread.
+ * The VibrationEffect of each {@link HapticPattern} is built once by {@link #prepare} and reused
+ * for every alert. Below O, and on motors without amplitude control, the pattern's legacy on/off
+ * timings are played instead so weak segments stay weak.
+ */
+final class VibratorFeedbackSink implements FeedbackDispatcher.Sink {
+
+    private static final String TAG = "VibratorFeedbackSink";
+
+    private final Context context;
+    private final Vibrator vibrator;
+    private final Handler mainThreadHandler;
+    private final ServiceMetrics metrics;
+    private final boolean amplitudeControl;
+    private final ConcurrentHashMap<HapticPattern, VibrationEffect> effects = new ConcurrentHashMap<>();
+
+    VibratorFeedbackSink(Context context, Vibrator vibrator, Handler mainThreadHandler, ServiceMetrics metrics) {
+        this.context = context;
+        this.vibrator = vibrator;
+        this.mainThreadHandler = mainThreadHandler;
+        this.metrics = metrics;
+        this.amplitudeControl = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                && vibrator != null && vibrator.hasAmplitudeControl();
+    }
+
+    /** Builds and caches the effect for {@code pattern}, so playing it later allocates nothing. Any thread. */
+    void prepare(HapticPattern pattern) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) effectFor(pattern);
+    }
+
+    private VibrationEffect effectFor(HapticPattern pattern) {
+        VibrationEffect effect = effects.get(pattern);
+        if (effect == null) {
+            effect = amplitudeControl
+                    ? VibrationEffect.createWaveform(pattern.getTimings(), pattern.getAmplitudes(), -1) // -1 for no repeat
+                    : VibrationEffect.createWaveform(pattern.getLegacyTimings(), -1);
+            effects.put(pattern, effect);
+        }
+        return effect;
+    }
+
+    @Override
+    public void play(FeedbackDispatcher.Alert alert) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        if (vibrator == null || !vibrator.hasVibrator()) {
+            Log.w(TAG, "No vibrator available or permission missing.");
+        } else if (alert.pattern != null) {
+            Log.d(TAG, "Playing " + alert.type + " pattern '" + alert.pattern + "'. Message: " + alert.message);
+            vibrate(alert.pattern);
+        } else {
+            Log.w(TAG, "Alert has no vibration pattern, skipping vibration.");
+        }
+        if (alert.message != null && !alert.message.isEmpty()) {
+            mainThreadHandler.post(() -> Toast.makeText(context, alert.message, Toast.LENGTH_SHORT).show());
+        }
+        metrics.vibrationMicros.record((SystemClock.elapsedRealtimeNanos() - startNanos) / 1000);
+    }
+
+    /** Plays {@code pattern} once. */
+    private void vibrate(HapticPattern pattern) {
+        metrics.vibrationsFired.incrementAndGet();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            vibrator.vibrate(effectFor(pattern));
+        } else {
+            vibrator.vibrate(pattern.getLegacyTimings(), -1);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        if (vibrator != null) vibrator.cancel();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.eye.benchmark;
+
+import com.example.eye.CycleEngine;
+import com.example.eye.SchedulePlan;
+import com.example.eye.WakeupScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phase transition logic: one {@link CycleEngine#onWakeup()} at a boundary, and resuming a
+ * session from its anchor (timeline lookup).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CycleEngineBenchmark {
+
+    private static final long MINUTE = 60_000L;
+
+    private long now;
+    private long nextWakeup;
+    private CycleEngine engine;
+    private SchedulePlan pomodoro;
+
+    @Setup
+    public void setUp() {
+        now = 1_000_000L;
+        WakeupScheduler scheduler = new WakeupScheduler() {
+            @Override
+            public void scheduleWakeup(long triggerAtElapsedMillis) {
+                nextWakeup = triggerAtElapsedMillis;
+            }
+
+            @Override
+            public void cancelWakeup() {
+            }
+        };
+        engine = new CycleEngine(() -> now, scheduler, (phase, previous, end) -> { });
+        pomodoro = SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 10_000L, 0);
+        engine.start(pomodoro);
+    }
+
+    @Benchmark
+    public CycleEngine.Phase phaseTransition() {
+        now = nextWakeup;
+        engine.onWakeup();
+        return engine.getPhase();
+    }
+
+    @Benchmark
+    public long resumeFromAnchor() {
+        // Somewhere in a long session, different every call
+        engine.resume(pomodoro, now - (now * 7919) % (300 * MINUTE));
+        now += 1_000;
+        return engine.getPhaseEndElapsed();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.eye.benchmark;
+
+import com.example.eye.CountdownFormatter;
+import com.example.eye.CycleEngine;
+import com.example.eye.PhaseNotifier;
+import com.example.eye.StatusText;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text that is built every second (the MainActivity countdown) or at every phase change
+ * (the notification content).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatusTextBenchmark {
+
+    private static final CycleEngine.Phase[] PHASES = {
+            CycleEngine.Phase.WORK, CycleEngine.Phase.BREAK_VIBRATING, CycleEngine.Phase.BREAK
+    };
+
+    private long remainingMillis;
+    private int phaseIndex;
+    private long phaseEnd;
+    private PhaseNotifier notifier;
+    private final CountdownFormatter countdownFormatter = new CountdownFormatter();
+    private Blackhole posted;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        remainingMillis = 20 * 60_000L;
+        posted = blackhole;
+        notifier = new PhaseNotifier((text, end) -> posted.consume(text));
+    }
+
+    /** Baseline for {@link #countdownLine()}: how the countdown line used to be built, every second. */
+    @Benchmark
+    public String countdownLineStringFormat() {
+        remainingMillis = remainingMillis > 1000 ? remainingMillis - 1000 : 20 * 60_000L;
+        long totalSeconds = remainingMillis / 1000;
+        return "Working: " + String.format("%02d:%02d", totalSeconds / 60, totalSeconds % 60);
+    }
+
+    @Benchmark
+    public char[] countdownLine() {
+        remainingMillis = remainingMillis > 1000 ? remainingMillis - 1000 : 20 * 60_000L;
+        countdownFormatter.format(CycleEngine.Phase.WORK, remainingMillis);
+        return countdownFormatter.getBuffer();
+    }
+
+    @Benchmark
+    public boolean notificationContent() {
+        // A phase change: new text and deadline, so the notifier posts
+        phaseIndex = (phaseIndex + 1) % PHASES.length;
+        phaseEnd += 60_000L;
+        return notifier.update(StatusText.notificationText(PHASES[phaseIndex]), phaseEnd);
+    }
+
+    @Benchmark
+    public boolean notificationUnchanged() {
+        // Same text and deadline: the notifier must skip the post
+        return notifier.update(StatusText.notificationText(PHASES[phaseIndex]), phaseEnd);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.eye.benchmark;
+
+import com.example.eye.HapticLibrary;
+import com.example.eye.HapticPattern;
+import com.example.eye.SchedulePlan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and compiling vibration patterns and schedule plans, both done on settings changes,
+ * against the cached lookup done when an alert fires.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VibrationPatternBenchmark {
+
+    // Nested groups and weak amplitudes, so the legacy pulse expansion is exercised too
+    private static final String RICH_PATTERN = "((+120@80 -60)*3 +400@200 -300)*5, +800";
+
+    private HapticLibrary library;
+
+    @Setup
+    public void setUp() {
+        library = new HapticLibrary();
+        library.register(HapticLibrary.BACK_TO_WORK, HapticLibrary.DEFAULT_BACK_TO_WORK_SOURCE);
+    }
+
+    @Benchmark
+    public HapticPattern parseBackToWorkPattern() {
+        return HapticPattern.parse(HapticLibrary.DEFAULT_BACK_TO_WORK_SOURCE);
+    }
+
+    @Benchmark
+    public HapticPattern parseRichPattern() {
+        return HapticPattern.parse(RICH_PATTERN);
+    }
+
+    @Benchmark
+    public HapticPattern cachedBackToWorkPattern() {
+        return library.get(HapticLibrary.BACK_TO_WORK);
+    }
+
+    @Benchmark
+    public SchedulePlan compilePomodoroPlan() {
+        return SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 10_000L, 0);
+    }
+}
@@ -0,0 +1,13 @@
+// Plain Java: the timing engine, journal and stats, testable and benchmarkable without Android
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
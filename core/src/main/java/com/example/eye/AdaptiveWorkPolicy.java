@@ -0,0 +1,80 @@
+package com.example.eye;
+
+/**
+ * Adaptive mode: work timing only runs while the user is actually looking at the screen.
+ * When the screen goes off during work the {@link CycleEngine} is paused, so no wakeups are
+ * scheduled and no break alert fires for a break the user is already taking. When the user is
+ * back, work continues with the time that was left, or the next work phase starts right away if
+ * the screen was off for at least the break that was due (the user already rested).
+ *
+ * <p>When the screen goes off during a break, the break is held ({@link CycleEngine#holdBreak()}):
+ * no wakeup ends the vibration phase and no back-to-work alert plays in the user's pocket. When the
+ * user is back the break continues to its end, or, if it is already over, work starts right away.
+ */
+public final class AdaptiveWorkPolicy implements ScreenStateSource.Listener {
+
+    private final Clock clock;
+    private final CycleEngine engine;
+
+    private boolean screenOff;
+    private long pausedMillis;
+    private int creditedBreaks;
+    private boolean lastPauseCredited;
+
+    public AdaptiveWorkPolicy(Clock clock, CycleEngine engine) {
+        this.clock = clock;
+        this.engine = engine;
+    }
+
+    @Override
+    public void onScreenOff() {
+        screenOff = true;
+        engine.pause();
+        engine.holdBreak(); // Each does nothing in the other's phases
+    }
+
+    @Override
+    public void onScreenOn() {
+        // Lock screen glances do not count as looking at the screen, wait for USER_PRESENT
+    }
+
+    @Override
+    public void onUserPresent() {
+        screenOff = false;
+        if (engine.isBreakHeld()) {
+            engine.releaseBreak();
+            return;
+        }
+        if (engine.getPhase() != CycleEngine.Phase.PAUSED) return;
+        long offMillis = clock.elapsedRealtime() - engine.getPausedAtElapsed();
+        pausedMillis += offMillis;
+        lastPauseCredited = offMillis >= engine.getCurrentBreakMillis();
+        if (lastPauseCredited) creditedBreaks++;
+        engine.resumeWork(lastPauseCredited);
+    }
+
+    /**
+     * Must be called for every phase the engine starts: a phase that begins while the screen is
+     * still off (e.g. after the plan was restarted) is paused or held right away.
+     */
+    public void onPhaseStarted(CycleEngine.Phase phase) {
+        if (!screenOff) return;
+        if (phase == CycleEngine.Phase.WORK) engine.pause();
+        else engine.holdBreak();
+    }
+
+    /** @return Whether the most recent pause was long enough to count as a break. */
+    public boolean isLastPauseCredited() {
+        return lastPauseCredited;
+    }
+
+    /** @return Total work time suspended because the screen was off. */
+    public long getPausedMillis() {
+        return pausedMillis;
+    }
+
+    /** @return Number of screen-off periods long enough to count as a break. */
+    public int getCreditedBreaks() {
+        return creditedBreaks;
+    }
+}
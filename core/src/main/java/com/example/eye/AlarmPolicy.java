@@ -0,0 +1,26 @@
+package com.example.eye;
+
+/**
+ * How a phase-boundary wakeup is delivered on the device.
+ * Kept free of Android types so the fallback rules can be checked on the JVM.
+ */
+public enum AlarmPolicy {
+    EXACT,    // AlarmManager.setExact() - fires on time, needs SCHEDULE_EXACT_ALARM on Android 12+
+    WINDOWED, // AlarmManager.setWindow() - may be batched by the system within a small window
+    HANDLER;  // Plain Handler post - last resort when no AlarmManager is available
+
+    static final int SDK_S = 31; // Build.VERSION_CODES.S
+
+    /**
+     * Picks the best available delivery mechanism.
+     * @param sdkInt The device SDK level.
+     * @param hasAlarmManager Whether the AlarmManager system service could be obtained.
+     * @param canScheduleExactAlarms Result of AlarmManager.canScheduleExactAlarms() (ignored before Android 12).
+     * @return The policy to use for the next wakeup.
+     */
+    public static AlarmPolicy select(int sdkInt, boolean hasAlarmManager, boolean canScheduleExactAlarms) {
+        if (!hasAlarmManager) return HANDLER;
+        if (sdkInt >= SDK_S && !canScheduleExactAlarms) return WINDOWED;
+        return EXACT;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.eye;
+
+/**
+ * Typed, validated timer settings shared by MainActivity and EyeBlinkerService.
+ * Immutable; all durations are stored in seconds like the persisted preferences.
+ */
+public final class BlinkerConfig {
+
+    public static final int DEFAULT_WORK_TIME_SEC = 20 * 60;  // 20 minutes
+    public static final int DEFAULT_BREAK_TIME_SEC = 2 * 60;  // 2 minutes
+    public static final int DEFAULT_VIBRATION_TIME_SEC = 20;  // Continuous vibration when the break starts
+
+    public static final BlinkerConfig DEFAULT =
+            new BlinkerConfig(DEFAULT_WORK_TIME_SEC, DEFAULT_BREAK_TIME_SEC, DEFAULT_VIBRATION_TIME_SEC);
+
+    public final int workTimeSec;
+    public final int breakTimeSec;
+    public final int vibrationTimeSec;
+    public final boolean adaptive; // Pause work timing while the screen is off
+    public final SchedulePlan.Preset plan; // CUSTOM runs the work / break times above
+    public final String backToWorkPattern; // HapticPattern text played when a break ends
+    public final CycleEngine.CatchUpPolicy catchUp; // Alert after boundaries missed while the device slept
+
+    public BlinkerConfig(int workTimeSec, int breakTimeSec, int vibrationTimeSec) {
+        this(workTimeSec, breakTimeSec, vibrationTimeSec, false, SchedulePlan.Preset.CUSTOM);
+    }
+
+    public BlinkerConfig(int workTimeSec, int breakTimeSec, int vibrationTimeSec, boolean adaptive, SchedulePlan.Preset plan) {
+        this(workTimeSec, breakTimeSec, vibrationTimeSec, adaptive, plan, HapticLibrary.DEFAULT_BACK_TO_WORK_SOURCE,
+                CycleEngine.CatchUpPolicy.SINGLE_SUMMARY);
+    }
+
+    /**
+     * @throws IllegalArgumentException if any value is not positive or the pattern does not parse.
+     */
+    public BlinkerConfig(int workTimeSec, int breakTimeSec, int vibrationTimeSec, boolean adaptive, SchedulePlan.Preset plan,
+                         String backToWorkPattern, CycleEngine.CatchUpPolicy catchUp) {
+        if (workTimeSec <= 0 || breakTimeSec <= 0 || vibrationTimeSec <= 0) {
+            throw new IllegalArgumentException("Time values must be positive");
+        }
+        HapticPattern.parse(backToWorkPattern);
+        this.workTimeSec = workTimeSec;
+        this.breakTimeSec = breakTimeSec;
+        this.vibrationTimeSec = vibrationTimeSec;
+        this.adaptive = adaptive;
+        this.plan = plan;
+        this.backToWorkPattern = backToWorkPattern.trim();
+        this.catchUp = catchUp;
+    }
+
+    /** @return A copy with the adaptive (screen-aware) mode switched on or off. */
+    public BlinkerConfig withAdaptive(boolean adaptive) {
+        return adaptive == this.adaptive ? this : new BlinkerConfig(workTimeSec, breakTimeSec, vibrationTimeSec, adaptive, plan, backToWorkPattern, catchUp);
+    }
+
+    /** @return A copy running another schedule plan. */
+    public BlinkerConfig withPlan(SchedulePlan.Preset plan) {
+        return plan == this.plan ? this : new BlinkerConfig(workTimeSec, breakTimeSec, vibrationTimeSec, adaptive, plan, backToWorkPattern, catchUp);
+    }
+
+    /**
+     * @return A copy playing another "back to work" vibration.
+     * @throws IllegalArgumentException with a message fit for the user if the pattern does not parse.
+     */
+    public BlinkerConfig withBackToWorkPattern(String pattern) {
+        return pattern.trim().equals(backToWorkPattern) ? this
+                : new BlinkerConfig(workTimeSec, breakTimeSec, vibrationTimeSec, adaptive, plan, pattern, catchUp);
+    }
+
+    /** @return A copy with another alert policy for missed phase boundaries. */
+    public BlinkerConfig withCatchUp(CycleEngine.CatchUpPolicy catchUp) {
+        return catchUp == this.catchUp ? this
+                : new BlinkerConfig(workTimeSec, breakTimeSec, vibrationTimeSec, adaptive, plan, backToWorkPattern, catchUp);
+    }
+
+    /** @return The compiled schedule for this config. */
+    public SchedulePlan toSchedulePlan() {
+        return SchedulePlan.of(plan, getWorkMillis(), getVibrationMillis(), getBreakMillis());
+    }
+
+    /**
+     * Parses and validates the values typed in the settings form.
+     * @param workTimeMin Work time in minutes.
+     * @param breakTimeMin Break time in minutes.
+     * @param vibrationTimeSec Vibration duration in seconds.
+     * @return The validated config.
+     * @throws IllegalArgumentException with a message fit for the user if the input is invalid.
+     */
+    public static BlinkerConfig parse(String workTimeMin, String breakTimeMin, String vibrationTimeSec) {
+        if (isEmpty(workTimeMin) || isEmpty(breakTimeMin) || isEmpty(vibrationTimeSec)) {
+            throw new IllegalArgumentException("Please fill all time fields");
+        }
+        int work;
+        int rest;
+        int vibration;
+        try {
+            work = Integer.parseInt(workTimeMin.trim());
+            rest = Integer.parseInt(breakTimeMin.trim());
+            vibration = Integer.parseInt(vibrationTimeSec.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number format");
+        }
+        if (work <= 0 || rest <= 0 || vibration <= 0) {
+            throw new IllegalArgumentException("Time values must be positive");
+        }
+        // Minutes must still fit in int seconds
+        if (work > Integer.MAX_VALUE / 60 || rest > Integer.MAX_VALUE / 60) {
+            throw new IllegalArgumentException("Time values are too large");
+        }
+        return new BlinkerConfig(work * 60, rest * 60, vibration);
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    public long getWorkMillis() {
+        return workTimeSec * 1000L;
+    }
+
+    public long getBreakMillis() {
+        return breakTimeSec * 1000L;
+    }
+
+    public long getVibrationMillis() {
+        return vibrationTimeSec * 1000L;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BlinkerConfig)) return false;
+        BlinkerConfig other = (BlinkerConfig) o;
+        return workTimeSec == other.workTimeSec && breakTimeSec == other.breakTimeSec && vibrationTimeSec == other.vibrationTimeSec
+                && adaptive == other.adaptive && plan == other.plan && backToWorkPattern.equals(other.backToWorkPattern)
+                && catchUp == other.catchUp;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 31 * (31 * (31 * (31 * workTimeSec + breakTimeSec) + vibrationTimeSec) + (adaptive ? 1 : 0)) + plan.hashCode();
+        result = 31 * result + backToWorkPattern.hashCode();
+        return 31 * result + catchUp.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Work=" + workTimeSec + "s, Break=" + breakTimeSec + "s, Vibration=" + vibrationTimeSec + "s, Adaptive=" + adaptive + ", Plan=" + plan + ", BackToWork=" + backToWorkPattern + ", CatchUp=" + catchUp;
+    }
+}
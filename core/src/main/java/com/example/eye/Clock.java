@@ -0,0 +1,15 @@
+package com.example.eye;
+
+/**
+ * Source of time for the cycle scheduling logic.
+ * On a device this is backed by {@link android.os.SystemClock}; JVM tests plug in a fake
+ * that can be advanced by hand, so hours of cycles can be simulated instantly.
+ */
+public interface Clock {
+
+    /**
+     * @return Milliseconds since boot, including time spent in deep sleep
+     *         (same time base as {@code SystemClock.elapsedRealtime()}).
+     */
+    long elapsedRealtime();
+}
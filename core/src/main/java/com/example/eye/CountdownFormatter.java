@@ -0,0 +1,45 @@
+package com.example.eye;
+
+/**
+ * Writes the per-second countdown line ("Working: 12:34") into a reused char buffer, so the
+ * tick path allocates nothing. On Android the buffer goes straight to
+ * {@code TextView.setText(char[], int, int)}, which wraps it without copying to a String.
+ * Not thread-safe; one instance per view.
+ */
+public final class CountdownFormatter {
+
+    private static final char[] WORKING = "Working: ".toCharArray();
+    private static final char[] BREAK_REST = "Break Rest: ".toCharArray();
+    private static final char[] PAUSED = "Paused (screen off)".toCharArray();
+
+    private final char[] buffer = new char[32]; // Longest line is PAUSED
+
+    /**
+     * Formats the line for {@code phase} into {@link #getBuffer()}.
+     * @param remainingMillis Time left in the phase; shown as MM:SS, minutes wrap at an hour.
+     * @return Number of chars written from the start of the buffer.
+     */
+    public int format(CycleEngine.Phase phase, long remainingMillis) {
+        if (phase == CycleEngine.Phase.PAUSED) {
+            System.arraycopy(PAUSED, 0, buffer, 0, PAUSED.length);
+            return PAUSED.length;
+        }
+        char[] label = phase == CycleEngine.Phase.WORK ? WORKING : BREAK_REST;
+        System.arraycopy(label, 0, buffer, 0, label.length);
+        int totalSeconds = (int) ((Math.max(0, remainingMillis) / 1000) % 3600);
+        int minutes = totalSeconds / 60;
+        int seconds = totalSeconds % 60;
+        int i = label.length;
+        buffer[i++] = (char) ('0' + minutes / 10);
+        buffer[i++] = (char) ('0' + minutes % 10);
+        buffer[i++] = ':';
+        buffer[i++] = (char) ('0' + seconds / 10);
+        buffer[i++] = (char) ('0' + seconds % 10);
+        return i;
+    }
+
+    /** @return The buffer written by {@link #format}; overwritten by the next call. */
+    public char[] getBuffer() {
+        return buffer;
+    }
+}
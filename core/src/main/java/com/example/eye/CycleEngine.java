@@ -0,0 +1,437 @@
+package com.example.eye;
+
+/**
+ * State machine of the work / break cycle, following the timeline of a {@link SchedulePlan}.
+ * Wakes up only at phase boundaries (work -> break, vibration end, break -> work) instead of
+ * ticking every second.
+ * Plain Java on purpose: time comes from an injected {@link Clock} and wakeups are requested
+ * through a {@link WakeupScheduler}, so the whole cycle can be simulated on the JVM
+ * (see {@link VirtualClock}). The Android service is only a thin adapter around it.
+ *
+ * <pre>
+ * IDLE --start--> WORK --------------------------> BREAK_VIBRATING --> BREAK --> WORK ...
+ *                      CONTINUOUS_AFTER_WORK                                INTERVAL_BACK_TO_WORK
+ * </pre>
+ * When the vibration is as long as the break, WORK goes straight to BREAK (still with
+ * CONTINUOUS_AFTER_WORK).
+ *
+ * <p>Deadlines are anchored at the session start: period k of the plan starts exactly at
+ * {@code anchor + k * period}, no matter how late earlier wakeups were delivered,
+ * so handler latency and alert setup never accumulate into drift. How late each boundary
+ * was actually handled is recorded in {@link #getLatenessHistogram()}.
+ *
+ * <p>A work phase can be suspended with {@link #pause()} and continued with {@link #resumeWork},
+ * which shifts the anchor by the paused time (or skips the following break when the pause counts as one).
+ * A break can be held with {@link #holdBreak()}: no wakeups and no alerts until {@link #releaseBreak()}.
+ *
+ * <p>New durations are applied to a running session with {@link #reconfigure}, which keeps the
+ * position in the cycle instead of starting over.
+ *
+ * <p>If a wakeup arrives after more than one alerting boundary has passed (Doze, a long suspend), the engine
+ * does not step through the missed phases: it looks up the current phase from the anchor, enters it
+ * directly and plays at most one alert chosen by the {@link CatchUpPolicy}.
+ */
+public final class CycleEngine {
+
+    public enum Phase {
+        IDLE,            // Not started or stopped
+        WORK,            // User is working, next boundary is the start of the break
+        BREAK_VIBRATING, // Break has started and the continuous vibration is playing
+        BREAK,           // Remaining break rest after the vibration ended
+        PAUSED           // Work timing suspended (screen off in adaptive mode), no wakeups pending
+    }
+
+    /** Which alert to play when a wakeup arrives after several phase boundaries were missed. */
+    public enum CatchUpPolicy {
+        SKIP,           // None, the current phase is entered silently
+        SINGLE_SUMMARY, // One CATCH_UP_SUMMARY alert for all missed boundaries
+        REPLAY_LAST     // The alert of the most recent missed boundary that had one
+    }
+
+    /** Receives phase changes. Called on whatever thread delivers {@link #onWakeup()}. */
+    public interface Listener {
+        /**
+         * @param phase The phase that just started.
+         * @param previous The phase that just ended ({@link Phase#IDLE} on the very first work phase).
+         * @param phaseEndElapsed When the new phase ends, on the {@link Clock#elapsedRealtime()} time base.
+         */
+        void onPhaseStarted(Phase phase, Phase previous, long phaseEndElapsed);
+
+        /**
+         * Called right before {@link #onPhaseStarted} when the transition has an alert attached.
+         * @param type The alert to play.
+         */
+        default void onFeedback(VibrationFeedbackType type) {
+        }
+
+        /**
+         * Called before the current phase is entered directly because several boundaries passed
+         * while no wakeup could be delivered.
+         * @param missedBoundaries How many phase boundaries with an alert passed since the last handled
+         *                         one (at least 2); the silent end of a vibration phase is not counted.
+         */
+        default void onCatchUp(long missedBoundaries) {
+        }
+    }
+
+    private final Clock clock;
+    private final WakeupScheduler wakeupScheduler;
+    private final Listener listener;
+
+    private SchedulePlan plan;
+    private CatchUpPolicy catchUpPolicy = CatchUpPolicy.SINGLE_SUMMARY;
+
+    private Phase phase = Phase.IDLE;
+    private long phaseEndElapsed;
+    private long sessionAnchorElapsed; // Start of the first work phase, all deadlines derive from it
+    private long cycleIndex;           // Number of full plan periods since the anchor
+    private int segment;               // Current segment of the plan's timeline
+    private long pausedAtElapsed;
+    private boolean breakHeld;         // Break wakeups suspended until releaseBreak()
+    private final LatencyHistogram latenessHistogram = new LatencyHistogram();
+    private long wakeupCount;
+    private long transitionCount;
+    private long catchUpCount;
+
+    public CycleEngine(Clock clock, WakeupScheduler wakeupScheduler, Listener listener) {
+        this.clock = clock;
+        this.wakeupScheduler = wakeupScheduler;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts (or restarts) a single work + break cycle with a fresh work phase.
+     * @param workMillis Length of the work phase.
+     * @param vibrationMillis Length of the continuous vibration at the start of the break.
+     * @param breakMillis Length of the whole break, vibration included.
+     */
+    public void start(long workMillis, long vibrationMillis, long breakMillis) {
+        start(SchedulePlan.of(SchedulePlan.Preset.CUSTOM, workMillis, vibrationMillis, breakMillis));
+    }
+
+    /** Starts (or restarts) {@code plan} from its first work phase. */
+    public void start(SchedulePlan plan) {
+        resume(plan, clock.elapsedRealtime());
+    }
+
+    /**
+     * Continues a session that started at {@code sessionAnchorElapsed}, e.g. after process death.
+     * The current phase and its deadline are looked up in the plan's timeline; boundaries that
+     * passed in the meantime are not alerted.
+     * @param plan The schedule the session runs.
+     * @param sessionAnchorElapsed Start of the session's first work phase (elapsedRealtime time base).
+     */
+    public void resume(SchedulePlan plan, long sessionAnchorElapsed) {
+        this.plan = plan;
+        this.sessionAnchorElapsed = sessionAnchorElapsed;
+        breakHeld = false;
+        long sinceAnchor = Math.max(0, clock.elapsedRealtime() - sessionAnchorElapsed);
+        cycleIndex = sinceAnchor / plan.getPeriodMillis();
+        phase = Phase.IDLE;
+        enterSegment(plan.segmentAt(sinceAnchor % plan.getPeriodMillis()), null);
+    }
+
+    /** Sets which alert to play when a wakeup arrives after several missed boundaries. */
+    public void setCatchUpPolicy(CatchUpPolicy catchUpPolicy) {
+        this.catchUpPolicy = catchUpPolicy;
+    }
+
+    /** Stops the cycle and cancels the pending wakeup. */
+    public void stop() {
+        wakeupScheduler.cancelWakeup();
+        phase = Phase.IDLE;
+        breakHeld = false;
+    }
+
+    /**
+     * Called by the {@link WakeupScheduler} when the requested time is reached.
+     * Early or spurious wakeups simply re-arm the pending boundary.
+     */
+    public void onWakeup() {
+        if (phase == Phase.IDLE || phase == Phase.PAUSED || breakHeld) return;
+        wakeupCount++;
+        long now = clock.elapsedRealtime();
+        if (now < phaseEndElapsed) {
+            wakeupScheduler.scheduleWakeup(phaseEndElapsed);
+            return;
+        }
+        latenessHistogram.record(now - phaseEndElapsed);
+        // Where the timeline says we are now; normally just the next segment
+        long sinceAnchor = now - sessionAnchorElapsed;
+        long targetCycle = sinceAnchor / plan.getPeriodMillis();
+        int target = plan.segmentAt(sinceAnchor % plan.getPeriodMillis());
+        long missed = (targetCycle - cycleIndex) * plan.getSegmentCount() + target - segment;
+        long missedAlerts = (targetCycle - cycleIndex) * plan.getAlertingBoundariesPerPeriod()
+                + plan.getAlertingBoundariesThrough(target) - plan.getAlertingBoundariesThrough(segment);
+        if (missedAlerts > 1) {
+            catchUp(targetCycle, target, missed, missedAlerts);
+            return;
+        }
+        if (missed > 1) {
+            // Only silent boundaries besides at most one alert, e.g. a short vibration that ended
+            // while this wakeup was a few seconds late: enter the current phase with that alert
+            cycleIndex = targetCycle;
+            enterSegment(target, lastMissedFeedback(target, missed));
+            return;
+        }
+        int next = segment + 1;
+        if (next == plan.getSegmentCount()) {
+            next = 0;
+            cycleIndex++;
+        }
+        enterSegment(next, feedbackFor(phase, plan.getPhase(next)));
+    }
+
+    /** Jumps straight to {@code target}, with at most one alert for all the boundaries in between. */
+    private void catchUp(long targetCycle, int target, long missed, long missedAlerts) {
+        catchUpCount++;
+        cycleIndex = targetCycle;
+        listener.onCatchUp(missedAlerts);
+        VibrationFeedbackType feedback = null;
+        if (catchUpPolicy == CatchUpPolicy.SINGLE_SUMMARY) {
+            feedback = VibrationFeedbackType.CATCH_UP_SUMMARY;
+        } else if (catchUpPolicy == CatchUpPolicy.REPLAY_LAST) {
+            feedback = lastMissedFeedback(target, missed);
+        }
+        enterSegment(target, feedback);
+    }
+
+    /** @return The alert of the latest boundary with one among the {@code missed} boundaries up to {@code target}, or null. */
+    private VibrationFeedbackType lastMissedFeedback(int target, long missed) {
+        int count = plan.getSegmentCount();
+        int entered = target;
+        for (long k = 0; k < Math.min(missed, count); k++) {
+            int left = entered == 0 ? count - 1 : entered - 1;
+            VibrationFeedbackType feedback = feedbackFor(plan.getPhase(left), plan.getPhase(entered));
+            if (feedback != null) return feedback;
+            entered = left;
+        }
+        return null;
+    }
+
+    /**
+     * Suspends the current work phase: the pending wakeup is cancelled and the remaining work
+     * time is frozen until {@link #resumeWork}. Does nothing outside of {@link Phase#WORK}.
+     */
+    public void pause() {
+        if (phase != Phase.WORK) return;
+        pausedAtElapsed = clock.elapsedRealtime();
+        wakeupScheduler.cancelWakeup();
+        phase = Phase.PAUSED;
+        listener.onPhaseStarted(Phase.PAUSED, Phase.WORK, phaseEndElapsed);
+    }
+
+    /**
+     * Continues a paused work phase. Does nothing unless {@link Phase#PAUSED}.
+     * @param restartWork true to treat the pause as the following break taken and start the next
+     *                    work phase of the plan now, false to continue with the work time that was
+     *                    left when pausing.
+     */
+    public void resumeWork(boolean restartWork) {
+        if (phase != Phase.PAUSED) return;
+        long now = clock.elapsedRealtime();
+        int next = segment;
+        if (restartWork) {
+            // Skip past the break that follows this work phase
+            next = skipToNextWork(next);
+            sessionAnchorElapsed = now - cycleIndex * plan.getPeriodMillis() - plan.getSegmentStart(next);
+        } else {
+            sessionAnchorElapsed += now - pausedAtElapsed;
+        }
+        enterSegment(next, null);
+    }
+
+    /**
+     * Suspends the wakeups of the current break (the user is away from the screen anyway): the
+     * end of the vibration and the back-to-work alert no longer fire until {@link #releaseBreak()}.
+     * The break keeps its deadline. Does nothing outside of a break.
+     */
+    public void holdBreak() {
+        if (phase != Phase.BREAK_VIBRATING && phase != Phase.BREAK) return;
+        breakHeld = true;
+        wakeupScheduler.cancelWakeup();
+    }
+
+    /**
+     * Ends {@link #holdBreak()}. If the break is over by now, the next work phase of the plan
+     * starts now, without the back-to-work alert (the user is already back). Otherwise the break
+     * continues to its original end, silently leaving the vibration phase if that ended meanwhile.
+     * Does nothing unless a break is held.
+     * @return true if the break was over and work started.
+     */
+    public boolean releaseBreak() {
+        if (!breakHeld) return false;
+        breakHeld = false;
+        long now = clock.elapsedRealtime();
+        long periodStart = sessionAnchorElapsed + cycleIndex * plan.getPeriodMillis();
+        if (now >= periodStart + plan.getPairEnd(segment)) {
+            int next = skipToNextWork(segment);
+            sessionAnchorElapsed = now - cycleIndex * plan.getPeriodMillis() - plan.getSegmentStart(next);
+            enterSegment(next, null);
+            return true;
+        }
+        if (now >= phaseEndElapsed) {
+            enterSegment(segment + 1, null); // The vibration ended; the rest of its break follows it
+        } else {
+            wakeupScheduler.scheduleWakeup(phaseEndElapsed);
+        }
+        return false;
+    }
+
+    /** @return The first work segment after {@code from}, counting a wrap into the next period in {@link #cycleIndex}. */
+    private int skipToNextWork(int from) {
+        int next = from;
+        do {
+            next++;
+            if (next == plan.getSegmentCount()) {
+                next = 0;
+                cycleIndex++;
+            }
+        } while (plan.getPhase(next) != Phase.WORK);
+        return next;
+    }
+
+    /** @return Whether break wakeups are suspended by {@link #holdBreak()}. */
+    public boolean isBreakHeld() {
+        return breakHeld;
+    }
+
+    /**
+     * Switches a running session to {@code newPlan} without losing its place: the current phase
+     * continues and later phases use the new durations.
+     * <ul>
+     *   <li>Work keeps the time already worked; if the new work length is shorter than that, the
+     *       work phase ends right away (with its usual alert).</li>
+     *   <li>A break keeps the time already rested, clamped the same way. A vibration that no longer
+     *       fits the break turns into plain break time.</li>
+     *   <li>A paused work phase stays paused and resumes with the new work length.</li>
+     * </ul>
+     * The anchor is moved so the new timeline passes through the current position, so the
+     * wakeup is simply re-armed. Only a change of preset, whose timeline cannot be mapped, starts
+     * over from the first work phase. Does nothing while {@link Phase#IDLE}.
+     * @return false if the session had to start over.
+     */
+    public boolean reconfigure(SchedulePlan newPlan) {
+        if (phase == Phase.IDLE) return true;
+        if (newPlan.getPreset() != plan.getPreset() || newPlan.getPairCount() != plan.getPairCount()) {
+            start(newPlan);
+            return false;
+        }
+        long reference = phase == Phase.PAUSED ? pausedAtElapsed : clock.elapsedRealtime();
+        int pair = plan.getPairIndex(segment);
+        int oldWorkSegment = plan.getPairWorkSegment(pair);
+        long periodStart = sessionAnchorElapsed + cycleIndex * plan.getPeriodMillis();
+        long intoPair = reference - (periodStart + plan.getSegmentStart(oldWorkSegment));
+
+        int newWorkSegment = newPlan.getPairWorkSegment(pair);
+        long newWorkMillis = newPlan.getPairWorkMillis(newWorkSegment);
+        int target;
+        long position; // Offset into the pair on the new timeline
+        if (phase == Phase.WORK || phase == Phase.PAUSED) {
+            target = newWorkSegment;
+            position = intoPair;
+        } else {
+            // Segments of a pair: WORK, then BREAK_VIBRATING if the vibration fits, then BREAK
+            int lastSegment = newWorkSegment + 1;
+            if (newPlan.getPhase(lastSegment) == Phase.BREAK_VIBRATING) lastSegment++;
+            target = phase == Phase.BREAK_VIBRATING ? newWorkSegment + 1 : lastSegment;
+            position = newWorkMillis + intoPair - plan.getPairWorkMillis(segment); // Time rested is kept
+        }
+        // A phase that is already over on the new timeline ends now
+        long newPairStart = newPlan.getSegmentStart(newWorkSegment);
+        position = Math.min(position, newPlan.getSegmentEnd(target) - newPairStart);
+
+        plan = newPlan;
+        sessionAnchorElapsed = reference - (cycleIndex * newPlan.getPeriodMillis() + newPairStart + position);
+        if (phase == Phase.PAUSED) {
+            segment = target;
+            phaseEndElapsed = sessionAnchorElapsed + cycleIndex * newPlan.getPeriodMillis() + newPlan.getSegmentEnd(target);
+        } else {
+            enterSegment(target, null);
+            if (breakHeld) wakeupScheduler.cancelWakeup(); // Still held, with the new deadline
+        }
+        return true;
+    }
+
+    /** @return When the current pause started; only meaningful while {@link Phase#PAUSED}. */
+    public long getPausedAtElapsed() {
+        return pausedAtElapsed;
+    }
+
+    /**
+     * @return The alert played on the transition from {@code previous} to {@code next}, or null for none.
+     */
+    static VibrationFeedbackType feedbackFor(Phase previous, Phase next) {
+        if (previous == Phase.WORK) return VibrationFeedbackType.CONTINUOUS_AFTER_WORK;
+        if (previous == Phase.BREAK && next == Phase.WORK) return VibrationFeedbackType.INTERVAL_BACK_TO_WORK;
+        return null;
+    }
+
+    private void enterSegment(int next, VibrationFeedbackType feedback) {
+        Phase previous = phase;
+        segment = next;
+        phase = plan.getPhase(next);
+        phaseEndElapsed = sessionAnchorElapsed + cycleIndex * plan.getPeriodMillis() + plan.getSegmentEnd(next);
+        transitionCount++;
+        wakeupScheduler.scheduleWakeup(phaseEndElapsed);
+        if (feedback != null) listener.onFeedback(feedback);
+        listener.onPhaseStarted(phase, previous, phaseEndElapsed);
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public long getPhaseEndElapsed() {
+        return phaseEndElapsed;
+    }
+
+    /**
+     * @return What the user counts down to: the end of the current phase, except during the break
+     *         vibration, which counts down to the end of the whole break it starts.
+     */
+    public long getCountdownEndElapsed() {
+        if (phase != Phase.BREAK_VIBRATING) return phaseEndElapsed;
+        return sessionAnchorElapsed + cycleIndex * plan.getPeriodMillis() + plan.getPairEnd(segment);
+    }
+
+    /** @return Start of the session; every deadline is an exact offset from it. */
+    public long getSessionAnchorElapsed() {
+        return sessionAnchorElapsed;
+    }
+
+    /** @return How late (ms) each phase boundary was handled after its deadline. */
+    public LatencyHistogram getLatenessHistogram() {
+        return latenessHistogram;
+    }
+
+    /** @return Number of wakeups delivered since this engine was created. */
+    public long getWakeupCount() {
+        return wakeupCount;
+    }
+
+    /** @return Number of phases entered since this engine was created. */
+    public long getTransitionCount() {
+        return transitionCount;
+    }
+
+    /** @return Number of wakeups that skipped over several missed boundaries. */
+    public long getCatchUpCount() {
+        return catchUpCount;
+    }
+
+    /** @return The running plan, or null if never started. */
+    public SchedulePlan getPlan() {
+        return plan;
+    }
+
+    /** @return Work length of the current work + break pair of the plan. */
+    public long getCurrentWorkMillis() {
+        return plan.getPairWorkMillis(segment);
+    }
+
+    /** @return Break length of the current work + break pair (the break that follows while working). */
+    public long getCurrentBreakMillis() {
+        return plan.getPairBreakMillis(segment);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.eye;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Tiny fixed-layout snapshot of the running cycle, written at every phase transition so a
+ * service restarted after process death can resume in the right phase with the right time left.
+ * The whole snapshot is {@link #SIZE} bytes and is read back with a single read (big-endian):
+ * <pre>
+ *   0  int   magic
+ *   4  short version
+ *   6  short phase                 CycleEngine.Phase ordinal
+ *   8  long  workMillis
+ *  16  long  vibrationMillis
+ *  24  long  breakMillis
+ *  32  long  phaseEndElapsed       elapsedRealtime time base; while PAUSED, when the pause started
+ *  40  long  sessionAnchorElapsed  elapsedRealtime time base
+ *  48  long  bootWallMillis        wall-clock time of boot when written, to survive reboots
+ *  56  int   preset                SchedulePlan.Preset ordinal
+ *  60  int   crc32                 of bytes 0..59
+ * </pre>
+ * The durations are the inputs the plan was built from, see {@link SchedulePlan#of}.
+ * It is overwritten in place; a torn write fails the CRC check and is ignored.
+ */
+public final class CycleSnapshot {
+
+    public static final int SIZE = 64;
+    private static final int MAGIC = 0x4542534E; // "EBSN"
+    private static final short VERSION = 2;
+    private static final int CRC_OFFSET = 60;
+
+    // Reboots are detected by the boot time moving more than this (wall-clock adjustments jitter it a little)
+    private static final long BOOT_TOLERANCE_MILLIS = 60_000;
+
+    public final CycleEngine.Phase phase;
+    public final long workMillis;
+    public final long vibrationMillis;
+    public final long breakMillis;
+    public final long phaseEndElapsed;
+    public final long sessionAnchorElapsed;
+    public final long bootWallMillis;
+    public final SchedulePlan.Preset preset;
+
+    public CycleSnapshot(CycleEngine.Phase phase, long workMillis, long vibrationMillis, long breakMillis,
+                         long phaseEndElapsed, long sessionAnchorElapsed, long bootWallMillis) {
+        this(phase, SchedulePlan.Preset.CUSTOM, workMillis, vibrationMillis, breakMillis, phaseEndElapsed, sessionAnchorElapsed, bootWallMillis);
+    }
+
+    public CycleSnapshot(CycleEngine.Phase phase, SchedulePlan.Preset preset, long workMillis, long vibrationMillis, long breakMillis,
+                         long phaseEndElapsed, long sessionAnchorElapsed, long bootWallMillis) {
+        this.phase = phase;
+        this.workMillis = workMillis;
+        this.vibrationMillis = vibrationMillis;
+        this.breakMillis = breakMillis;
+        this.phaseEndElapsed = phaseEndElapsed;
+        this.sessionAnchorElapsed = sessionAnchorElapsed;
+        this.bootWallMillis = bootWallMillis;
+        this.preset = preset;
+    }
+
+    /**
+     * Captures the current state of a running engine.
+     * @param bootWallMillis {@code System.currentTimeMillis() - SystemClock.elapsedRealtime()} right now.
+     */
+    public static CycleSnapshot of(CycleEngine engine, long bootWallMillis) {
+        SchedulePlan plan = engine.getPlan();
+        // A paused work phase has no end yet; what a restart needs is when the pause started
+        long phaseEndElapsed = engine.getPhase() == CycleEngine.Phase.PAUSED ? engine.getPausedAtElapsed() : engine.getPhaseEndElapsed();
+        return new CycleSnapshot(engine.getPhase(), plan.getPreset(), plan.getWorkMillis(), plan.getVibrationMillis(), plan.getBreakMillis(),
+                phaseEndElapsed, engine.getSessionAnchorElapsed(), bootWallMillis);
+    }
+
+    /** @return The plan the snapshotted session was running, compiled again. */
+    public SchedulePlan toPlan() {
+        return SchedulePlan.of(preset, workMillis, vibrationMillis, breakMillis);
+    }
+
+    /**
+     * @param currentBootWallMillis Boot time of the running system, computed like {@code bootWallMillis}.
+     * @return The session anchor on the current boot's elapsedRealtime time base. Unchanged on the same
+     *         boot; after a reboot the anchor is carried over through wall-clock time.
+     */
+    public long anchorForBoot(long currentBootWallMillis) {
+        if (Math.abs(currentBootWallMillis - bootWallMillis) <= BOOT_TOLERANCE_MILLIS) return sessionAnchorElapsed;
+        return bootWallMillis + sessionAnchorElapsed - currentBootWallMillis;
+    }
+
+    /**
+     * @param currentBootWallMillis See {@link #anchorForBoot}.
+     * @param nowElapsed Current elapsedRealtime.
+     * @return The anchor to {@link CycleEngine#resume} with. A session paused when it was written
+     *         stayed paused until now, so the anchor moves by the time since the pause started and
+     *         work continues with the time that was left.
+     */
+    public long anchorForResume(long currentBootWallMillis, long nowElapsed) {
+        long anchor = anchorForBoot(currentBootWallMillis);
+        if (phase != CycleEngine.Phase.PAUSED) return anchor;
+        long pausedAtElapsed = phaseEndElapsed + anchor - sessionAnchorElapsed; // Same time base shift as the anchor
+        return anchor + Math.max(0, nowElapsed - pausedAtElapsed);
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        buffer.putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) phase.ordinal())
+                .putLong(workMillis)
+                .putLong(vibrationMillis)
+                .putLong(breakMillis)
+                .putLong(phaseEndElapsed)
+                .putLong(sessionAnchorElapsed)
+                .putLong(bootWallMillis)
+                .putInt(preset.ordinal());
+        buffer.putInt(CRC_OFFSET, crc(buffer.array()));
+        return buffer.array();
+    }
+
+    /** @return The decoded snapshot, or null if the bytes are not a valid snapshot. */
+    public static CycleSnapshot fromBytes(byte[] bytes, int length) {
+        if (length != SIZE) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, SIZE);
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION || buffer.getInt(CRC_OFFSET) != crc(bytes)) {
+            return null;
+        }
+        int phase = buffer.getShort(6);
+        CycleEngine.Phase[] phases = CycleEngine.Phase.values();
+        int preset = buffer.getInt(56);
+        SchedulePlan.Preset[] presets = SchedulePlan.Preset.values();
+        if (phase < 0 || phase >= phases.length || preset < 0 || preset >= presets.length) return null;
+        return new CycleSnapshot(phases[phase], presets[preset], buffer.getLong(8), buffer.getLong(16), buffer.getLong(24),
+                buffer.getLong(32), buffer.getLong(40), buffer.getLong(48));
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, CRC_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    /** Overwrites the snapshot file in place with one write. */
+    public void write(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write(toBytes());
+        }
+    }
+
+    /** @return The snapshot stored in {@code file}, or null if there is none or it is invalid. */
+    public static CycleSnapshot read(File file) {
+        byte[] bytes = new byte[SIZE];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int length = in.read(bytes);
+            return fromBytes(bytes, length);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
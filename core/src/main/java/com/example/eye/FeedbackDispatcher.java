@@ -0,0 +1,176 @@
+package com.example.eye;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Plays alerts (a vibration plus a toast) one at a time through a {@link Sink}.
+ * <ul>
+ *   <li>An alert that arrives while another one plays waits in a small bounded priority queue.</li>
+ *   <li>A duplicate of an alert submitted less than {@link #DEDUP_WINDOW_MILLIS} ago is collapsed into it.</li>
+ *   <li>A higher-priority alert preempts the running one: back-to-work cuts a long break vibration short.</li>
+ * </ul>
+ * Not thread-safe: every method must be called on the same (feedback) thread. The end of the
+ * running alert is tracked with a {@link WakeupScheduler}, so the whole thing runs on the JVM with a
+ * {@link VirtualClock} and a fake sink.
+ */
+public final class FeedbackDispatcher {
+
+    /** Does the actual work, e.g. Vibrator and Toast on the device. Called on the dispatcher thread. */
+    public interface Sink {
+        /** Starts playing {@code alert}; returns without waiting for it to finish. */
+        void play(Alert alert);
+
+        /** Stops the vibration that is playing, if any. */
+        void cancel();
+    }
+
+    /** One alert to play. */
+    public static final class Alert {
+        public final VibrationFeedbackType type;
+        public final HapticPattern pattern; // Precompiled vibration, or null for a toast only
+        public final long durationMillis;   // How long the vibration runs; 0 for a toast only
+        public final String message;        // Toast text, or null for none
+
+        public Alert(VibrationFeedbackType type, HapticPattern pattern, String message) {
+            this.type = type;
+            this.pattern = pattern;
+            this.durationMillis = pattern != null ? pattern.getTotalMillis() : 0;
+            this.message = message;
+        }
+    }
+
+    public static final long DEDUP_WINDOW_MILLIS = 2_000;
+    public static final int MAX_QUEUED = 4;
+
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final Clock clock;
+    private final WakeupScheduler wakeupScheduler;
+    private final Sink sink;
+
+    // Highest priority first, then oldest first
+    private final PriorityQueue<Queued> queue = new PriorityQueue<>(MAX_QUEUED + 1, (a, b) ->
+            a.alert.type.priority != b.alert.type.priority
+                    ? b.alert.type.priority - a.alert.type.priority
+                    : Long.compare(a.sequence, b.sequence));
+    private final long[] lastSubmittedElapsed = new long[VibrationFeedbackType.values().length];
+    private long sequence;
+
+    private Alert playing;
+    private long playingEndElapsed;
+
+    private long playedCount;
+    private long collapsedCount;
+    private long preemptedCount;
+    private long droppedCount;
+
+    public FeedbackDispatcher(Clock clock, WakeupScheduler wakeupScheduler, Sink sink) {
+        this.clock = clock;
+        this.wakeupScheduler = wakeupScheduler;
+        this.sink = sink;
+        Arrays.fill(lastSubmittedElapsed, NEVER);
+    }
+
+    /** Plays {@code alert} now, preempting or queueing behind the running one as its priority says. */
+    public void submit(Alert alert) {
+        long now = clock.elapsedRealtime();
+        long last = lastSubmittedElapsed[alert.type.ordinal()];
+        if (last != NEVER && now - last < DEDUP_WINDOW_MILLIS) {
+            collapsedCount++;
+            return;
+        }
+        lastSubmittedElapsed[alert.type.ordinal()] = now;
+
+        if (playing == null) {
+            start(alert, now);
+        } else if (alert.type.priority > playing.type.priority) {
+            preemptedCount++;
+            sink.cancel();
+            start(alert, now);
+        } else {
+            queue.add(new Queued(alert, sequence++));
+            if (queue.size() > MAX_QUEUED) {
+                dropLowest();
+            }
+        }
+    }
+
+    /** Called by the {@link WakeupScheduler} when the running alert should have finished. */
+    public void onWakeup() {
+        if (playing == null) return;
+        long now = clock.elapsedRealtime();
+        if (now < playingEndElapsed) {
+            wakeupScheduler.scheduleWakeup(playingEndElapsed);
+            return;
+        }
+        playing = null;
+        Queued next = queue.poll();
+        if (next != null) start(next.alert, now);
+    }
+
+    /** Stops the running alert and forgets the queued ones. */
+    public void cancel() {
+        wakeupScheduler.cancelWakeup();
+        queue.clear();
+        if (playing != null) {
+            playing = null;
+            sink.cancel();
+        }
+    }
+
+    private void start(Alert alert, long now) {
+        playing = alert;
+        playingEndElapsed = now + alert.durationMillis;
+        playedCount++;
+        sink.play(alert);
+        wakeupScheduler.scheduleWakeup(playingEndElapsed);
+    }
+
+    private void dropLowest() {
+        Queued lowest = null;
+        for (Queued queued : queue) {
+            if (lowest == null || queue.comparator().compare(queued, lowest) > 0) lowest = queued;
+        }
+        queue.remove(lowest);
+        droppedCount++;
+    }
+
+    /** @return The alert playing right now, or null. */
+    public Alert getPlaying() {
+        return playing;
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getPlayedCount() {
+        return playedCount;
+    }
+
+    /** @return Duplicates merged into an earlier alert. */
+    public long getCollapsedCount() {
+        return collapsedCount;
+    }
+
+    /** @return Running alerts cut short by a higher-priority one. */
+    public long getPreemptedCount() {
+        return preemptedCount;
+    }
+
+    /** @return Alerts thrown away because the queue was full. */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    private static final class Queued {
+        final Alert alert;
+        final long sequence;
+
+        Queued(Alert alert, long sequence) {
+            this.alert = alert;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.eye;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled {@link HapticPattern}s keyed by pattern ID. Patterns are registered (parsed and
+ * compiled) when the settings are applied and only looked up when an alert fires.
+ * Safe to register from one thread and look up from another.
+ */
+public final class HapticLibrary {
+
+    public static final String BACK_TO_WORK = "back_to_work";
+    public static final String CATCH_UP = "catch_up";
+
+    public static final String DEFAULT_BACK_TO_WORK_SOURCE = "(+500 -500)*4 +500"; // 5 pulses, 5 seconds
+    public static final String CATCH_UP_SOURCE = "+200 -150 +200 -150 +600";       // Short, distinct from both
+
+    private final ConcurrentHashMap<String, HapticPattern> patterns = new ConcurrentHashMap<>();
+    // Break-start one-shots, one per distinct length of the current plan; replaced as a whole
+    private volatile HapticPattern[] breakStarts = new HapticPattern[0];
+
+    /**
+     * Parses and caches {@code source} under {@code id}. Re-registering the same text keeps the
+     * compiled pattern.
+     * @return The compiled pattern.
+     * @throws IllegalArgumentException if the text is not a valid pattern; the old entry is kept.
+     */
+    public HapticPattern register(String id, String source) {
+        HapticPattern current = patterns.get(id);
+        if (current != null && current.getSource().equals(source)) return current;
+        HapticPattern compiled = HapticPattern.parse(source);
+        patterns.put(id, compiled);
+        return compiled;
+    }
+
+    /** Caches an already compiled pattern under {@code id}. */
+    public void put(String id, HapticPattern pattern) {
+        patterns.put(id, pattern);
+    }
+
+    /** @return The pattern registered under {@code id}, or null. */
+    public HapticPattern get(String id) {
+        return patterns.get(id);
+    }
+
+    /**
+     * Compiles the break-start vibration for every distinct length {@code plan} plays: the
+     * vibration time, cut short for breaks shorter than it (e.g. the long pomodoro break keeps
+     * it, the 20s eye rest cuts it). Patterns of lengths compiled before are kept.
+     * @return The newly compiled patterns, to prepare for playback.
+     */
+    public HapticPattern[] registerBreakStarts(SchedulePlan plan) {
+        HapticPattern[] current = breakStarts;
+        HapticPattern[] next = new HapticPattern[plan.getPairCount()];
+        HapticPattern[] added = new HapticPattern[plan.getPairCount()];
+        int count = 0;
+        int addedCount = 0;
+        for (int pair = 0; pair < plan.getPairCount(); pair++) {
+            long durationMillis = Math.min(plan.getVibrationMillis(), plan.getPairBreakMillis(plan.getPairWorkSegment(pair)));
+            if (durationMillis <= 0 || find(next, count, durationMillis) != null) continue;
+            HapticPattern pattern = find(current, current.length, durationMillis);
+            if (pattern == null) {
+                pattern = HapticPattern.oneShot(durationMillis);
+                added[addedCount++] = pattern;
+            }
+            next[count++] = pattern;
+        }
+        breakStarts = Arrays.copyOf(next, count);
+        return Arrays.copyOf(added, addedCount);
+    }
+
+    /**
+     * @return The break-start vibration of {@code durationMillis} compiled by
+     *         {@link #registerBreakStarts}, or null. Allocation-free, for use when the alert fires.
+     */
+    public HapticPattern getBreakStart(long durationMillis) {
+        HapticPattern[] current = breakStarts;
+        return find(current, current.length, durationMillis);
+    }
+
+    private static HapticPattern find(HapticPattern[] patterns, int count, long durationMillis) {
+        for (int i = 0; i < count; i++) {
+            if (patterns[i].getTotalMillis() == durationMillis) return patterns[i];
+        }
+        return null;
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.eye;
+
+import java.util.Arrays;
+
+/**
+ * A vibration waveform, parsed and validated once and compiled to the primitive arrays the
+ * platform takes, so nothing is rebuilt when an alert fires.
+ *
+ * <p>Text syntax, items separated by spaces or commas:
+ * <pre>
+ *   +500        vibrate 500ms at the default amplitude
+ *   +300@128    vibrate 300ms at amplitude 128 (1..255)
+ *   -200        pause 200ms
+ *   (...)*4     repeat the group 4 times (groups can nest)
+ * </pre>
+ * For example the "back to work" alert is {@code (+500 -500)*4 +500}.
+ *
+ * <p>Compiled forms (shared, do not modify):
+ * <ul>
+ *   <li>{@link #getTimings()} / {@link #getAmplitudes()}: one entry per segment, adjacent equal
+ *       segments merged, for VibrationEffect.createWaveform(timings, amplitudes, -1) on O+.</li>
+ *   <li>{@link #getLegacyTimings()}: off/on alternating, starting with off, for the pre-O
+ *       Vibrator.vibrate(long[], int). The old API has no amplitude, so weak segments are played as
+ *       short pulses whose duty cycle follows the amplitude instead of at full strength.</li>
+ * </ul>
+ */
+public final class HapticPattern {
+
+    public static final int DEFAULT_AMPLITUDE = -1; // Same value as VibrationEffect.DEFAULT_AMPLITUDE
+    public static final int MAX_AMPLITUDE = 255;
+
+    // Parser limits, so a typo cannot produce an endless or huge waveform
+    public static final long MAX_SEGMENT_MILLIS = 60_000;
+    public static final long MAX_TOTAL_MILLIS = 5 * 60_000;
+    public static final int MAX_SEGMENTS = 512;
+    public static final int MAX_REPEAT = 100;
+    public static final int MAX_NESTING = 4;
+
+    // Legacy fallback: amplitudes at or above this play solid, below it as pulses of this period
+    static final int LEGACY_SOLID_AMPLITUDE = 192;
+    static final long LEGACY_PULSE_PERIOD_MILLIS = 50;
+    static final long LEGACY_MIN_PULSE_MILLIS = 10;
+
+    private final String source;
+    private final long[] timings;
+    private final int[] amplitudes;
+    private final long[] legacyTimings;
+    private final long totalMillis;
+
+    private HapticPattern(String source, long[] timings, int[] amplitudes, int count) {
+        this.source = source;
+        this.timings = new long[count];
+        this.amplitudes = new int[count];
+        System.arraycopy(timings, 0, this.timings, 0, count);
+        System.arraycopy(amplitudes, 0, this.amplitudes, 0, count);
+        long total = 0;
+        for (long timing : this.timings) total += timing;
+        this.totalMillis = total;
+        this.legacyTimings = compileLegacy(this.timings, this.amplitudes);
+    }
+
+    /**
+     * Parses and compiles a pattern.
+     * @throws IllegalArgumentException with a message fit for the user if the text is not a valid pattern.
+     */
+    public static HapticPattern parse(String source) {
+        if (source == null || source.trim().isEmpty()) throw new IllegalArgumentException("Vibration pattern is empty");
+        Parser parser = new Parser(source);
+        parser.parseSequence(0);
+        if (parser.pos < source.length()) throw parser.error("Unexpected ')'");
+        if (parser.count == 0) throw new IllegalArgumentException("Vibration pattern is empty");
+        return new HapticPattern(source, parser.timings, parser.amplitudes, parser.count);
+    }
+
+    /** @return A single vibration of {@code durationMillis} at the default amplitude (no parsing, no limits). */
+    public static HapticPattern oneShot(long durationMillis) {
+        if (durationMillis <= 0) throw new IllegalArgumentException("Duration must be positive");
+        return new HapticPattern("+" + durationMillis, new long[]{durationMillis}, new int[]{DEFAULT_AMPLITUDE}, 1);
+    }
+
+    /** Recursive-descent parser that appends merged segments as it goes. */
+    private static final class Parser {
+        final String text;
+        int pos;
+        long[] timings = new long[16];
+        int[] amplitudes = new int[16];
+        int count;
+        long total;
+        boolean groupStarting; // The next segment opens a group body and must not merge into the one before
+        int bodyStart;         // First segment of the innermost group being parsed; nothing merges across it
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid vibration pattern at " + (pos + 1) + ": " + message);
+        }
+
+        /** Parses items up to the end of the text or a ')' (not consumed). */
+        void parseSequence(int depth) {
+            while (true) {
+                skipSeparators();
+                if (pos >= text.length() || text.charAt(pos) == ')') return;
+                char c = text.charAt(pos);
+                if (c == '+' || c == '-') {
+                    parseSegment();
+                } else if (c == '(') {
+                    parseGroup(depth);
+                } else {
+                    throw error("Expected '+', '-' or '('");
+                }
+            }
+        }
+
+        void parseSegment() {
+            boolean on = text.charAt(pos++) == '+';
+            long millis = parseNumber(MAX_SEGMENT_MILLIS, "Duration");
+            int amplitude = on ? DEFAULT_AMPLITUDE : 0;
+            if (pos < text.length() && text.charAt(pos) == '@') {
+                if (!on) throw error("A pause has no amplitude");
+                pos++;
+                amplitude = (int) parseNumber(MAX_AMPLITUDE, "Amplitude");
+            }
+            append(millis, amplitude);
+        }
+
+        void parseGroup(int depth) {
+            if (depth + 1 > MAX_NESTING) throw error("Groups nested too deep");
+            pos++; // '('
+            int groupStart = count;
+            long totalBefore = total;
+            int outerBodyStart = bodyStart;
+            bodyStart = groupStart;
+            groupStarting = true;
+            parseSequence(depth + 1);
+            groupStarting = false;
+            bodyStart = outerBodyStart;
+            if (pos >= text.length()) throw error("Missing ')'");
+            pos++; // ')'
+            if (pos >= text.length() || text.charAt(pos) != '*') throw error("Expected '*' and a repeat count after ')'");
+            pos++;
+            int repeat = (int) parseNumber(MAX_REPEAT, "Repeat count");
+            if (count == groupStart) return; // Empty group
+            // Copy the body first: appending merges into its last segment
+            long[] bodyTimings = Arrays.copyOfRange(timings, groupStart, count);
+            int[] bodyAmplitudes = Arrays.copyOfRange(amplitudes, groupStart, count);
+            long groupMillis = total - totalBefore;
+            for (int r = 1; r < repeat; r++) {
+                if (total + groupMillis > MAX_TOTAL_MILLIS) throw error("Pattern is longer than " + MAX_TOTAL_MILLIS / 1000 + "s");
+                for (int i = 0; i < bodyTimings.length; i++) append(bodyTimings[i], bodyAmplitudes[i]);
+            }
+            // Now the group is expanded, its first segment can merge into the one before it
+            if (groupStart > bodyStart && amplitudes[groupStart - 1] == amplitudes[groupStart]) {
+                timings[groupStart - 1] += timings[groupStart];
+                System.arraycopy(timings, groupStart + 1, timings, groupStart, count - groupStart - 1);
+                System.arraycopy(amplitudes, groupStart + 1, amplitudes, groupStart, count - groupStart - 1);
+                count--;
+            }
+        }
+
+        long parseNumber(long max, String what) {
+            int start = pos;
+            long value = 0;
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                value = value * 10 + (text.charAt(pos) - '0');
+                pos++;
+                if (value > max) {
+                    pos = start;
+                    throw error(what + " must be at most " + max);
+                }
+            }
+            if (pos == start) throw error(what + " expected");
+            if (value < 1) {
+                pos = start;
+                throw error(what + " must be at least 1");
+            }
+            return value;
+        }
+
+        void skipSeparators() {
+            while (pos < text.length() && (Character.isWhitespace(text.charAt(pos)) || text.charAt(pos) == ',')) pos++;
+        }
+
+        void append(long millis, int amplitude) {
+            total += millis;
+            if (total > MAX_TOTAL_MILLIS) throw error("Pattern is longer than " + MAX_TOTAL_MILLIS / 1000 + "s");
+            if (count > 0 && amplitudes[count - 1] == amplitude && !groupStarting) {
+                timings[count - 1] += millis;
+                return;
+            }
+            groupStarting = false;
+            if (count == MAX_SEGMENTS) throw error("Pattern has more than " + MAX_SEGMENTS + " segments");
+            if (count == timings.length) {
+                timings = Arrays.copyOf(timings, count * 2);
+                amplitudes = Arrays.copyOf(amplitudes, count * 2);
+            }
+            timings[count] = millis;
+            amplitudes[count] = amplitude;
+            count++;
+        }
+    }
+
+    /** Builds the off/on alternating legacy array, turning weak segments into pulses. */
+    private static long[] compileLegacy(long[] timings, int[] amplitudes) {
+        LegacyBuilder builder = new LegacyBuilder(timings.length * 2 + 2);
+        for (int i = 0; i < timings.length; i++) {
+            int amplitude = amplitudes[i];
+            long millis = timings[i];
+            if (amplitude == 0) {
+                builder.add(false, millis);
+            } else if (amplitude == DEFAULT_AMPLITUDE || amplitude >= LEGACY_SOLID_AMPLITUDE) {
+                builder.add(true, millis);
+            } else {
+                // Duty cycle proportional to the amplitude, but long enough for the motor to spin up
+                long on = Math.max(LEGACY_MIN_PULSE_MILLIS, LEGACY_PULSE_PERIOD_MILLIS * amplitude / MAX_AMPLITUDE);
+                long remaining = millis;
+                while (remaining > 0) {
+                    long period = Math.min(LEGACY_PULSE_PERIOD_MILLIS, remaining);
+                    long pulse = Math.min(on, period);
+                    builder.add(true, pulse);
+                    builder.add(false, period - pulse);
+                    remaining -= period;
+                }
+            }
+        }
+        return builder.toArray();
+    }
+
+    /** Collects off/on runs, merging equal neighbours; index 0 is always an off run. */
+    private static final class LegacyBuilder {
+        long[] runs;
+        int count = 1; // runs[0] is the initial off delay
+
+        LegacyBuilder(int capacity) {
+            runs = new long[Math.max(2, capacity)];
+        }
+
+        void add(boolean on, long millis) {
+            if (millis <= 0) return;
+            boolean lastOn = (count - 1) % 2 == 1;
+            if (lastOn == on) {
+                runs[count - 1] += millis;
+                return;
+            }
+            if (count == runs.length) runs = Arrays.copyOf(runs, count * 2);
+            runs[count++] = millis;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(runs, count);
+        }
+    }
+
+    /** @return The text the pattern was parsed from. */
+    public String getSource() {
+        return source;
+    }
+
+    /** @return Segment lengths for the amplitude-aware API; shared, do not modify. */
+    public long[] getTimings() {
+        return timings;
+    }
+
+    /** @return Amplitude per segment: 0 for a pause, 1..255, or {@link #DEFAULT_AMPLITUDE}; shared, do not modify. */
+    public int[] getAmplitudes() {
+        return amplitudes;
+    }
+
+    /** @return Off/on alternating timings for the pre-O API; shared, do not modify. */
+    public long[] getLegacyTimings() {
+        return legacyTimings;
+    }
+
+    /** @return How long the pattern takes to play once. */
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.eye;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket histogram of latencies (e.g. how late a phase-boundary wakeup fired, or how long a
+ * notification post took). Memory is allocated once up front; recording is a bucket search and a
+ * few atomic increments, lock-free and allocation-free, so it is safe on hot paths and from any thread.
+ * Percentiles are reported as the upper bound of the bucket they fall in, capped by the exact max.
+ */
+public final class LatencyHistogram {
+
+    // Upper bounds (inclusive) of each bucket in the histogram's unit; the last bucket is open-ended
+    private static final long[] BUCKET_BOUNDS = {
+            0, 1, 2, 5, 10, 20, 50, 100, 200, 500,
+            1_000, 2_000, 5_000, 10_000, 30_000, 60_000, 300_000
+    };
+
+    private final String unit;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /** Histogram of millisecond values. */
+    public LatencyHistogram() {
+        this("ms");
+    }
+
+    /** @param unit Unit of the recorded values, only used for reporting (e.g. "us"). */
+    public LatencyHistogram(String unit) {
+        this.unit = unit;
+    }
+
+    /** @param value Latency to record; negative values are counted as 0. */
+    public void record(long value) {
+        long clamped = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(clamped));
+        count.incrementAndGet();
+        sum.addAndGet(clamped);
+        long currentMax = max.get();
+        while (clamped > currentMax && !max.compareAndSet(currentMax, clamped)) {
+            currentMax = max.get();
+        }
+    }
+
+    private static int bucketOf(long value) {
+        int low = 0;
+        int high = BUCKET_BOUNDS.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BUCKET_BOUNDS[mid] < value) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /** @return Mean of the recorded values, or 0 when nothing was recorded. */
+    public long getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : sum.get() / n;
+    }
+
+    /**
+     * @param percentile Between 0 and 100, e.g. 99 for p99.
+     * @return Upper bound of the bucket holding the given percentile, or 0 when nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        long n = count.get();
+        long currentMax = max.get();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(percentile / 100.0 * n);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return i < BUCKET_BOUNDS.length ? Math.min(BUCKET_BOUNDS[i], currentMax) : currentMax;
+            }
+        }
+        return currentMax;
+    }
+
+    /** Clears the histogram. Values recorded concurrently with a reset may be partially kept. */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + " mean=" + getMean() + unit + " p50=" + getPercentile(50) + unit
+                + " p99=" + getPercentile(99) + unit + " max=" + getMax() + unit;
+    }
+}
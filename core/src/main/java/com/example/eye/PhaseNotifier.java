@@ -0,0 +1,54 @@
+package com.example.eye;
+
+/**
+ * Decides when the foreground notification actually needs to be re-posted.
+ * The notification renders the countdown itself (a chronometer counting down to the phase end),
+ * so a new post is only needed when the status text or the phase end time changes.
+ */
+public final class PhaseNotifier {
+
+    /** Performs the real post, e.g. NotificationManager.notify() on the device. */
+    public interface Poster {
+        /**
+         * @param contentText Status line shown in the notification.
+         * @param phaseEndElapsed End of the current phase (elapsedRealtime time base), or 0 for no countdown.
+         */
+        void post(String contentText, long phaseEndElapsed);
+    }
+
+    private final Poster poster;
+
+    private String lastContentText;
+    private long lastPhaseEndElapsed = -1;
+    private long notifyCount;
+
+    public PhaseNotifier(Poster poster) {
+        this.poster = poster;
+    }
+
+    /**
+     * Posts the notification if anything visible changed since the last post.
+     * @return true if the notification was posted.
+     */
+    public boolean update(String contentText, long phaseEndElapsed) {
+        if (phaseEndElapsed == lastPhaseEndElapsed && contentText.equals(lastContentText)) {
+            return false;
+        }
+        lastContentText = contentText;
+        lastPhaseEndElapsed = phaseEndElapsed;
+        notifyCount++;
+        poster.post(contentText, phaseEndElapsed);
+        return true;
+    }
+
+    /** Forgets the last posted state, so the next {@link #update} always posts (e.g. after startForeground). */
+    public void reset() {
+        lastContentText = null;
+        lastPhaseEndElapsed = -1;
+    }
+
+    /** @return Number of posts (NotificationManager.notify calls) made so far. */
+    public long getNotifyCount() {
+        return notifyCount;
+    }
+}
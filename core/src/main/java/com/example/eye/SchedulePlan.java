@@ -0,0 +1,207 @@
+package com.example.eye;
+
+/**
+ * A work / break schedule compiled once into a timeline of cumulative phase end offsets.
+ * One period of the plan is a sequence of work + break pairs (e.g. four pomodoros where the
+ * last break is long); the plan repeats that period forever. Every break starts with the
+ * continuous vibration, split into its own {@link CycleEngine.Phase#BREAK_VIBRATING} segment
+ * when it is shorter than the break.
+ *
+ * <p>Finding the phase for a point in time is a binary search over the offsets
+ * ({@link #segmentAt}), so resuming or catching up never walks the schedule.
+ */
+public final class SchedulePlan {
+
+    public enum Preset {
+        CUSTOM,     // One work + break pair with the user's durations
+        POMODORO,   // 25m work + 5m break, every fourth break is 20m
+        EYE_REST    // 20-20-20 rule: a 20s look into the distance every 20 minutes
+    }
+
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+
+    private final Preset preset;
+    private final long workMillis;      // Inputs the plan was built from, kept to rebuild it from a snapshot
+    private final long vibrationMillis;
+    private final long breakMillis;
+
+    // Compiled timeline, one entry per segment
+    private final CycleEngine.Phase[] phases;
+    private final long[] ends;          // End offset of each segment from the start of the period
+    private final long[] pairWork;      // Work length of the work + break pair the segment belongs to
+    private final long[] pairBreak;     // Break length of that pair
+    private final int[] pairOf;         // Index of the work + break pair the segment belongs to
+    private final int[] pairFirst;      // First (work) segment of each pair
+    private final int segmentCount;
+    private final long periodMillis;
+
+    private SchedulePlan(Preset preset, long workMillis, long vibrationMillis, long breakMillis, long[] workBreakPairs) {
+        this.preset = preset;
+        this.workMillis = workMillis;
+        this.vibrationMillis = Math.max(0, vibrationMillis);
+        this.breakMillis = breakMillis;
+
+        int pairs = workBreakPairs.length / 2;
+        phases = new CycleEngine.Phase[pairs * 3];
+        ends = new long[pairs * 3];
+        pairWork = new long[pairs * 3];
+        pairBreak = new long[pairs * 3];
+        pairOf = new int[pairs * 3];
+        pairFirst = new int[pairs];
+        int count = 0;
+        long offset = 0;
+        for (int p = 0; p < pairs; p++) {
+            long work = workBreakPairs[2 * p];
+            long rest = workBreakPairs[2 * p + 1];
+            if (work <= 0 || rest <= 0) {
+                throw new IllegalArgumentException("Work and break durations must be positive");
+            }
+            int first = count;
+            pairFirst[p] = first;
+            offset += work;
+            phases[count] = CycleEngine.Phase.WORK;
+            ends[count++] = offset;
+            // A break shorter than the vibration ends together with it
+            if (this.vibrationMillis > 0 && this.vibrationMillis < rest) {
+                phases[count] = CycleEngine.Phase.BREAK_VIBRATING;
+                ends[count++] = offset + this.vibrationMillis;
+            }
+            offset += rest;
+            phases[count] = CycleEngine.Phase.BREAK;
+            ends[count++] = offset;
+            for (int i = first; i < count; i++) {
+                pairWork[i] = work;
+                pairBreak[i] = rest;
+                pairOf[i] = p;
+            }
+        }
+        periodMillis = offset;
+        segmentCount = count;
+    }
+
+    /**
+     * Compiles a plan.
+     * @param preset Which plan to build.
+     * @param workMillis Work length, only used by {@link Preset#CUSTOM}.
+     * @param vibrationMillis Continuous vibration at the start of every break.
+     * @param breakMillis Break length, only used by {@link Preset#CUSTOM}.
+     * @throws IllegalArgumentException if a work or break length is not positive.
+     */
+    public static SchedulePlan of(Preset preset, long workMillis, long vibrationMillis, long breakMillis) {
+        switch (preset) {
+            case POMODORO:
+                return new SchedulePlan(preset, workMillis, vibrationMillis, breakMillis, new long[]{
+                        25 * MINUTE, 5 * MINUTE,
+                        25 * MINUTE, 5 * MINUTE,
+                        25 * MINUTE, 5 * MINUTE,
+                        25 * MINUTE, 20 * MINUTE});
+            case EYE_REST:
+                return new SchedulePlan(preset, workMillis, vibrationMillis, breakMillis, new long[]{20 * MINUTE, 20 * SECOND});
+            case CUSTOM:
+            default:
+                return new SchedulePlan(Preset.CUSTOM, workMillis, vibrationMillis, breakMillis, new long[]{workMillis, breakMillis});
+        }
+    }
+
+    /** @return Index of the segment covering {@code offset} ms into a period (0 <= offset < period). */
+    public int segmentAt(long offset) {
+        // First segment whose end is after the offset
+        int low = 0;
+        int high = segmentCount - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] > offset) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    public Preset getPreset() {
+        return preset;
+    }
+
+    public long getWorkMillis() {
+        return workMillis;
+    }
+
+    public long getVibrationMillis() {
+        return vibrationMillis;
+    }
+
+    public long getBreakMillis() {
+        return breakMillis;
+    }
+
+    /** @return Length of one full period of the plan. */
+    public long getPeriodMillis() {
+        return periodMillis;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public CycleEngine.Phase getPhase(int segment) {
+        return phases[segment];
+    }
+
+    /** @return Where the segment starts, relative to the start of the period. */
+    public long getSegmentStart(int segment) {
+        return segment == 0 ? 0 : ends[segment - 1];
+    }
+
+    /** @return Where the segment ends, relative to the start of the period. */
+    public long getSegmentEnd(int segment) {
+        return ends[segment];
+    }
+
+    /** @return Where the work + break pair the segment is part of ends, relative to the start of the period. */
+    public long getPairEnd(int segment) {
+        int next = pairOf[segment] + 1;
+        return ends[(next < pairFirst.length ? pairFirst[next] : segmentCount) - 1];
+    }
+
+    /** @return Work length of the work + break pair the segment is part of. */
+    public long getPairWorkMillis(int segment) {
+        return pairWork[segment];
+    }
+
+    /** @return Break length of the work + break pair the segment is part of. */
+    public long getPairBreakMillis(int segment) {
+        return pairBreak[segment];
+    }
+
+    /** @return Index of the work + break pair the segment is part of. */
+    public int getPairIndex(int segment) {
+        return pairOf[segment];
+    }
+
+    /** @return Number of work + break pairs in one period. */
+    public int getPairCount() {
+        return pairFirst.length;
+    }
+
+    /**
+     * @return Number of boundaries with an alert (into a work segment, or into the first segment of a
+     *         break) from the start of the period up to and including entering {@code segment}. The
+     *         silent end of a vibration segment is not counted.
+     */
+    public int getAlertingBoundariesThrough(int segment) {
+        int pair = pairOf[segment];
+        return 2 * pair + (segment > pairFirst[pair] ? 2 : 1);
+    }
+
+    /** @return Number of boundaries with an alert in one period: two per work + break pair. */
+    public int getAlertingBoundariesPerPeriod() {
+        return 2 * pairFirst.length;
+    }
+
+    /** @return The work segment that starts pair {@code pair}; its break segments follow it. */
+    public int getPairWorkSegment(int pair) {
+        return pairFirst[pair];
+    }
+}
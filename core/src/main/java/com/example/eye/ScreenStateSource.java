@@ -0,0 +1,24 @@
+package com.example.eye;
+
+/**
+ * Source of screen / user-presence signals for the adaptive mode.
+ * On a device this is backed by the SCREEN_OFF / SCREEN_ON / USER_PRESENT broadcasts;
+ * JVM tests feed scripted event traces instead.
+ */
+public interface ScreenStateSource {
+
+    interface Listener {
+        void onScreenOff();
+
+        /** Screen turned on; the user may only be glancing at the lock screen. */
+        void onScreenOn();
+
+        /** The device was unlocked and the user is looking at it again. */
+        void onUserPresent();
+    }
+
+    /** Starts delivering signals to {@code listener}. */
+    void start(Listener listener);
+
+    void stop();
+}
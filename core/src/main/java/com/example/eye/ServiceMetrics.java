@@ -0,0 +1,37 @@
+package com.example.eye;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Low-overhead metrics of the running service, printed by
+ * {@code adb shell dumpsys activity service com.example.eye/.EyeBlinkerService}.
+ * Counters and histograms are lock-free and recording never allocates, so they can be updated
+ * on every wakeup without showing up in traces or GC logs.
+ */
+public final class ServiceMetrics {
+
+    public final AtomicLong wakeups = new AtomicLong();            // Every delivered alarm, early ones included
+    public final AtomicLong notificationPosts = new AtomicLong();
+    public final AtomicLong vibrationsFired = new AtomicLong();
+
+    public final LatencyHistogram wakeupLatenessMillis;           // Owned by the cycle engine
+    public final LatencyHistogram notificationMicros = new LatencyHistogram("us");
+    public final LatencyHistogram vibrationMicros = new LatencyHistogram("us");
+
+    /** @param wakeupLatenessMillis Lateness histogram of the cycle engine, see {@link CycleEngine#getLatenessHistogram()}. */
+    public ServiceMetrics(LatencyHistogram wakeupLatenessMillis) {
+        this.wakeupLatenessMillis = wakeupLatenessMillis;
+    }
+
+    /** Writes a plain text report, one metric per line. */
+    public void dump(PrintWriter writer) {
+        writer.println("Eye Blinker metrics:");
+        writer.println("  wakeups: " + wakeups.get());
+        writer.println("  notification posts: " + notificationPosts.get());
+        writer.println("  vibrations fired: " + vibrationsFired.get());
+        writer.println("  wakeup lateness: " + wakeupLatenessMillis);
+        writer.println("  updateNotification: " + notificationMicros);
+        writer.println("  VibratorFeedbackSink.play: " + vibrationMicros);
+    }
+}
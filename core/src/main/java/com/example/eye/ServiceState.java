@@ -0,0 +1,39 @@
+package com.example.eye;
+
+/**
+ * What the service is doing right now, as published to bound clients.
+ * Carries the phase deadline rather than a remaining time, so clients can render the
+ * countdown themselves without a message from the service every second.
+ */
+public final class ServiceState {
+
+    public static final ServiceState STOPPED = new ServiceState(false, CycleEngine.Phase.IDLE, 0);
+
+    public final boolean running;
+    public final CycleEngine.Phase phase;
+    public final long phaseEndElapsed; // elapsedRealtime time base, 0 when not running
+
+    public ServiceState(boolean running, CycleEngine.Phase phase, long phaseEndElapsed) {
+        this.running = running;
+        this.phase = phase;
+        this.phaseEndElapsed = phaseEndElapsed;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ServiceState)) return false;
+        ServiceState other = (ServiceState) o;
+        return running == other.running && phase == other.phase && phaseEndElapsed == other.phaseEndElapsed;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (running ? 1 : 0) + phase.hashCode()) + Long.hashCode(phaseEndElapsed);
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceState{running=" + running + ", phase=" + phase + ", phaseEndElapsed=" + phaseEndElapsed + "}";
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.eye;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only binary journal of cycle events.
+ * Every record has the same {@link #RECORD_SIZE}-byte layout (big-endian):
+ * <pre>
+ *   0  long  timestamp   wall-clock millis of the event
+ *   8  byte  event       {@link Event#code}
+ *   9  byte[3] reserved  always 0
+ *  12  int   value       event specific, see {@link Event}
+ * </pre>
+ * Records are collected in memory and handed to the I/O executor one batch at a time, so the
+ * caller (the service's main thread) never touches the disk. Data already passed to the OS
+ * survives process death, so at most the batch still being collected is lost. A record torn by
+ * a crash mid-write is cut off the next time the journal is opened and skipped by the reader.
+ *
+ * <p>{@link #append}, {@link #flush} and {@link #close} must be called from a single thread.
+ */
+public final class SessionJournal implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger("SessionJournal");
+
+    public static final int RECORD_SIZE = 16;
+    public static final int DEFAULT_BATCH_RECORDS = 16;
+
+    public enum Event {
+        WORK_START(1),      // value: work phase length in ms
+        BREAK_START(2),     // value: break length in ms
+        VIBRATION_FIRED(3), // value: VibrationFeedbackType ordinal
+        BREAK_END(4),       // value: break length in ms
+        SERVICE_STOP(5),    // value: 0
+        WORK_PAUSE(6),      // value: 0, adaptive mode suspended work timing (screen off)
+        WORK_RESUME(7);     // value: 1 if the pause was long enough to count as a break, else 0
+
+        private static final Event[] BY_CODE = new Event[8];
+
+        static {
+            for (Event event : values()) BY_CODE[event.code] = event;
+        }
+
+        public final byte code;
+
+        Event(int code) {
+            this.code = (byte) code;
+        }
+
+        /** @return The event for a stored code, or null for an unknown code. */
+        public static Event fromCode(int code) {
+            return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        }
+    }
+
+    private final File file;
+    private final Executor ioExecutor;
+    private final int batchRecords;
+
+    private ByteBuffer pending;
+    private FileChannel channel; // Only touched on the I/O executor
+
+    /**
+     * @param file Journal file; created on first write if missing.
+     * @param ioExecutor Single-threaded executor that performs all file I/O.
+     * @param batchRecords Number of records collected before a write is issued.
+     */
+    public SessionJournal(File file, Executor ioExecutor, int batchRecords) {
+        if (batchRecords <= 0) throw new IllegalArgumentException("batchRecords must be positive");
+        this.file = file;
+        this.ioExecutor = ioExecutor;
+        this.batchRecords = batchRecords;
+        this.pending = ByteBuffer.allocate(batchRecords * RECORD_SIZE);
+    }
+
+    /**
+     * Adds a record to the current batch, handing the batch to the I/O executor once it is full.
+     * @param event What happened.
+     * @param timestampMillis Wall-clock time of the event.
+     * @param value Event specific value, see {@link Event}.
+     */
+    public void append(Event event, long timestampMillis, int value) {
+        pending.putLong(timestampMillis)
+                .put(event.code)
+                .put((byte) 0).put((byte) 0).put((byte) 0)
+                .putInt(value);
+        if (!pending.hasRemaining()) flush();
+    }
+
+    /** Hands the records collected so far to the I/O executor. */
+    public void flush() {
+        if (pending.position() == 0) return;
+        ByteBuffer batch = pending;
+        pending = ByteBuffer.allocate(batchRecords * RECORD_SIZE);
+        batch.flip();
+        ioExecutor.execute(() -> write(batch));
+    }
+
+    /** Flushes the current batch and closes the file once it has been written. */
+    @Override
+    public void close() {
+        flush();
+        ioExecutor.execute(() -> {
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Failed to close journal", e);
+            }
+            channel = null;
+        });
+    }
+
+    private void write(ByteBuffer batch) {
+        try {
+            if (channel == null) channel = open(file);
+            while (batch.hasRemaining()) channel.write(batch);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to write journal batch, dropping it", e);
+        }
+    }
+
+    private static FileChannel open(File file) throws IOException {
+        FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+        // Cut off a record torn by a crash so new records stay aligned
+        long aligned = channel.size() - channel.size() % RECORD_SIZE;
+        channel.truncate(aligned);
+        channel.position(aligned);
+        return channel;
+    }
+}
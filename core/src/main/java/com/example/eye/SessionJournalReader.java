@@ -0,0 +1,101 @@
+package com.example.eye;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Streams the records of a {@link SessionJournal} file through a fixed-size buffer,
+ * so files of any length are read in constant memory and without per-record allocation.
+ *
+ * <pre>
+ * try (SessionJournalReader reader = new SessionJournalReader(file)) {
+ *     while (reader.next()) {
+ *         handle(reader.getEvent(), reader.getTimestampMillis(), reader.getValue());
+ *     }
+ * }
+ * </pre>
+ * A trailing partial record (torn write) and records with unknown event codes are skipped.
+ */
+public final class SessionJournalReader implements Closeable {
+
+    private static final int BUFFER_RECORDS = 4096;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_RECORDS * SessionJournal.RECORD_SIZE);
+
+    private long timestampMillis;
+    private SessionJournal.Event event;
+    private int value;
+    private long recordsRead; // Skipped ones included
+
+    public SessionJournalReader(File file) throws IOException {
+        this.channel = new FileInputStream(file).getChannel();
+        buffer.limit(0);
+    }
+
+    /**
+     * Moves to the next record.
+     * @return false at the end of the journal.
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (buffer.remaining() < SessionJournal.RECORD_SIZE && !fill()) return false;
+            recordsRead++;
+            timestampMillis = buffer.getLong();
+            event = SessionJournal.Event.fromCode(buffer.get());
+            buffer.position(buffer.position() + 3); // Reserved bytes
+            value = buffer.getInt();
+            if (event != null) return true;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        buffer.compact();
+        while (buffer.position() < SessionJournal.RECORD_SIZE) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    /** Moves to record {@code index} (0-based), so the next {@link #next()} reads it. */
+    public void seek(long index) throws IOException {
+        channel.position(index * SessionJournal.RECORD_SIZE);
+        buffer.limit(0);
+        recordsRead = index;
+    }
+
+    /** @return Number of records from the start of the file up to and including the current one. */
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+    /** @return Number of whole records in the file. */
+    public long getRecordCount() throws IOException {
+        return channel.size() / SessionJournal.RECORD_SIZE;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public SessionJournal.Event getEvent() {
+        return event;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.eye;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Daily and weekly rollups of the session journal: screen-work time, breaks completed,
+ * breaks interrupted and the longest run of completed breaks.
+ * Rollups are updated incrementally as each journal event arrives ({@link #accept}) and kept in
+ * primitive ring arrays keyed by day / week index, so every query is O(1). The same
+ * {@link #accept} path rebuilds everything from history ({@link #rebuild}), which keeps the two
+ * results identical by construction.
+ *
+ * <p>Not thread safe; the service feeds it from its I/O thread.
+ */
+public final class SessionStats {
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    static final int DAY_SLOTS = 64;  // Power of two, ~2 months of history
+    static final int WEEK_SLOTS = 16; // Power of two, ~4 months of history
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private static final int SNAPSHOT_MAGIC = 0x45425354; // "EBST"
+    private static final int SNAPSHOT_VERSION = 2;
+
+    private final int zoneOffsetMillis;
+
+    // Rollups, one slot per day / week; a slot belongs to the index stored in the *Keys array
+    private final int[] dayKeys = new int[DAY_SLOTS];
+    private final long[] dayWorkMillis = new long[DAY_SLOTS];
+    private final int[] dayBreaksCompleted = new int[DAY_SLOTS];
+    private final int[] dayBreaksInterrupted = new int[DAY_SLOTS];
+    private final int[] dayLongestStreak = new int[DAY_SLOTS];
+
+    private final int[] weekKeys = new int[WEEK_SLOTS];
+    private final long[] weekWorkMillis = new long[WEEK_SLOTS];
+    private final int[] weekBreaksCompleted = new int[WEEK_SLOTS];
+    private final int[] weekBreaksInterrupted = new int[WEEK_SLOTS];
+    private final int[] weekLongestStreak = new int[WEEK_SLOTS];
+
+    // Running state between events
+    private long workStartMillis = -1; // Start of the open work phase, -1 if none
+    private boolean breakOpen;
+    private int currentStreak;
+    private long journalRecords; // Journal records applied so far: where replaying a snapshot's tail starts
+
+    /**
+     * @param zoneOffsetMillis Offset of local time from UTC, used to decide where a day starts.
+     */
+    public SessionStats(int zoneOffsetMillis) {
+        this.zoneOffsetMillis = zoneOffsetMillis;
+        Arrays.fill(dayKeys, EMPTY);
+        Arrays.fill(weekKeys, EMPTY);
+    }
+
+    /** @return Local day index (days since 1970-01-01) of a wall-clock time. */
+    public int dayIndex(long timestampMillis) {
+        return (int) Math.floorDiv(timestampMillis + zoneOffsetMillis, DAY_MILLIS);
+    }
+
+    /** @return Week index of a day index; weeks start on Monday (1970-01-01 was a Thursday). */
+    public static int weekIndex(int dayIndex) {
+        return Math.floorDiv(dayIndex + 3, 7);
+    }
+
+    /**
+     * Applies one journal event to the rollups.
+     * @param event What happened.
+     * @param timestampMillis Wall-clock time of the event.
+     * @param value Event specific value, see {@link SessionJournal.Event}.
+     */
+    public void accept(SessionJournal.Event event, long timestampMillis, int value) {
+        journalRecords++;
+        switch (event) {
+            case WORK_START:
+                closeWork(timestampMillis);
+                if (breakOpen) interruptBreak(timestampMillis); // Restarted in the middle of a break
+                workStartMillis = timestampMillis;
+                break;
+            case BREAK_START:
+                closeWork(timestampMillis);
+                breakOpen = true;
+                break;
+            case BREAK_END:
+                if (!breakOpen) break;
+                breakOpen = false;
+                currentStreak++;
+                int day = daySlot(dayIndex(timestampMillis));
+                int week = weekSlot(weekIndex(dayIndex(timestampMillis)));
+                if (day >= 0) {
+                    dayBreaksCompleted[day]++;
+                    dayLongestStreak[day] = Math.max(dayLongestStreak[day], currentStreak);
+                }
+                if (week >= 0) {
+                    weekBreaksCompleted[week]++;
+                    weekLongestStreak[week] = Math.max(weekLongestStreak[week], currentStreak);
+                }
+                break;
+            case SERVICE_STOP:
+                closeWork(timestampMillis);
+                if (breakOpen) interruptBreak(timestampMillis);
+                break;
+            case WORK_PAUSE:
+                closeWork(timestampMillis); // Time with the screen off is not work time
+                break;
+            case WORK_RESUME:
+                closeWork(timestampMillis);
+                workStartMillis = timestampMillis;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void interruptBreak(long timestampMillis) {
+        breakOpen = false;
+        currentStreak = 0;
+        int day = daySlot(dayIndex(timestampMillis));
+        int week = weekSlot(weekIndex(dayIndex(timestampMillis)));
+        if (day >= 0) dayBreaksInterrupted[day]++;
+        if (week >= 0) weekBreaksInterrupted[week]++;
+    }
+
+    /** Adds the open work phase up to {@code endMillis}, split at local midnight. */
+    private void closeWork(long endMillis) {
+        if (workStartMillis < 0) return;
+        long start = workStartMillis;
+        workStartMillis = -1;
+        while (start < endMillis) {
+            int dayIndex = dayIndex(start);
+            long dayEnd = (dayIndex + 1L) * DAY_MILLIS - zoneOffsetMillis;
+            long end = Math.min(endMillis, dayEnd);
+            int day = daySlot(dayIndex);
+            int week = weekSlot(weekIndex(dayIndex));
+            if (day >= 0) dayWorkMillis[day] += end - start;
+            if (week >= 0) weekWorkMillis[week] += end - start;
+            start = end;
+        }
+    }
+
+    /** @return Slot for a day, claiming (and clearing) it if it held an older day; -1 if the day is too old. */
+    private int daySlot(int dayIndex) {
+        int slot = dayIndex & (DAY_SLOTS - 1);
+        if (dayKeys[slot] == dayIndex) return slot;
+        if (dayKeys[slot] != EMPTY && dayKeys[slot] > dayIndex) return -1;
+        dayKeys[slot] = dayIndex;
+        dayWorkMillis[slot] = 0;
+        dayBreaksCompleted[slot] = 0;
+        dayBreaksInterrupted[slot] = 0;
+        dayLongestStreak[slot] = 0;
+        return slot;
+    }
+
+    private int weekSlot(int weekIndex) {
+        int slot = weekIndex & (WEEK_SLOTS - 1);
+        if (weekKeys[slot] == weekIndex) return slot;
+        if (weekKeys[slot] != EMPTY && weekKeys[slot] > weekIndex) return -1;
+        weekKeys[slot] = weekIndex;
+        weekWorkMillis[slot] = 0;
+        weekBreaksCompleted[slot] = 0;
+        weekBreaksInterrupted[slot] = 0;
+        weekLongestStreak[slot] = 0;
+        return slot;
+    }
+
+    private int findDay(int dayIndex) {
+        int slot = dayIndex & (DAY_SLOTS - 1);
+        return dayKeys[slot] == dayIndex ? slot : -1;
+    }
+
+    private int findWeek(int weekIndex) {
+        int slot = weekIndex & (WEEK_SLOTS - 1);
+        return weekKeys[slot] == weekIndex ? slot : -1;
+    }
+
+    // Queries: O(1), 0 for days / weeks without data
+
+    public long getDayWorkMillis(int dayIndex) {
+        int slot = findDay(dayIndex);
+        return slot < 0 ? 0 : dayWorkMillis[slot];
+    }
+
+    public int getDayBreaksCompleted(int dayIndex) {
+        int slot = findDay(dayIndex);
+        return slot < 0 ? 0 : dayBreaksCompleted[slot];
+    }
+
+    public int getDayBreaksInterrupted(int dayIndex) {
+        int slot = findDay(dayIndex);
+        return slot < 0 ? 0 : dayBreaksInterrupted[slot];
+    }
+
+    public int getDayLongestStreak(int dayIndex) {
+        int slot = findDay(dayIndex);
+        return slot < 0 ? 0 : dayLongestStreak[slot];
+    }
+
+    public long getWeekWorkMillis(int weekIndex) {
+        int slot = findWeek(weekIndex);
+        return slot < 0 ? 0 : weekWorkMillis[slot];
+    }
+
+    public int getWeekBreaksCompleted(int weekIndex) {
+        int slot = findWeek(weekIndex);
+        return slot < 0 ? 0 : weekBreaksCompleted[slot];
+    }
+
+    public int getWeekBreaksInterrupted(int weekIndex) {
+        int slot = findWeek(weekIndex);
+        return slot < 0 ? 0 : weekBreaksInterrupted[slot];
+    }
+
+    public int getWeekLongestStreak(int weekIndex) {
+        int slot = findWeek(weekIndex);
+        return slot < 0 ? 0 : weekLongestStreak[slot];
+    }
+
+    /**
+     * Rebuilds the rollups from the full journal history.
+     * @param journalFile Journal to replay; a missing file gives empty stats.
+     * @param zoneOffsetMillis See {@link #SessionStats(int)}.
+     */
+    public static SessionStats rebuild(File journalFile, int zoneOffsetMillis) throws IOException {
+        SessionStats stats = new SessionStats(zoneOffsetMillis);
+        if (!journalFile.exists()) return stats;
+        try (SessionJournalReader reader = new SessionJournalReader(journalFile)) {
+            stats.replay(reader);
+        }
+        return stats;
+    }
+
+    /**
+     * Loads the stats saved by {@link #save} and applies the journal records written after it, so
+     * nothing since the last save is lost after process death. Falls back to a {@link #rebuild} when
+     * the snapshot is missing, unreadable, was written for another time zone or is ahead of the journal.
+     */
+    public static SessionStats load(File statsFile, File journalFile, int zoneOffsetMillis) throws IOException {
+        if (statsFile.exists()) {
+            SessionStats stats = null;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(statsFile)))) {
+                if (in.readInt() == SNAPSHOT_MAGIC && in.readInt() == SNAPSHOT_VERSION && in.readInt() == zoneOffsetMillis) {
+                    stats = new SessionStats(zoneOffsetMillis);
+                    stats.readState(in);
+                }
+            } catch (IOException e) {
+                // Corrupt snapshot, the journal is the source of truth
+            }
+            if (stats != null && stats.replayTail(journalFile)) return stats;
+        }
+        return rebuild(journalFile, zoneOffsetMillis);
+    }
+
+    /** @return false if the journal holds fewer records than this snapshot has applied. */
+    private boolean replayTail(File journalFile) throws IOException {
+        if (!journalFile.exists()) return journalRecords == 0;
+        try (SessionJournalReader reader = new SessionJournalReader(journalFile)) {
+            if (reader.getRecordCount() < journalRecords) return false;
+            reader.seek(journalRecords);
+            replay(reader);
+        }
+        return true;
+    }
+
+    private void replay(SessionJournalReader reader) throws IOException {
+        while (reader.next()) accept(reader.getEvent(), reader.getTimestampMillis(), reader.getValue());
+        journalRecords = reader.getRecordsRead(); // Records with unknown events were skipped, not applied
+    }
+
+    /** Writes a snapshot of the rollups, replacing the previous one atomically. */
+    public void save(File statsFile) throws IOException {
+        File temp = new File(statsFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(zoneOffsetMillis);
+            writeState(out);
+        }
+        if (!temp.renameTo(statsFile)) throw new IOException("Could not replace " + statsFile);
+    }
+
+    private void writeState(DataOutputStream out) throws IOException {
+        out.writeLong(workStartMillis);
+        out.writeBoolean(breakOpen);
+        out.writeInt(currentStreak);
+        out.writeLong(journalRecords);
+        for (int i = 0; i < DAY_SLOTS; i++) {
+            out.writeInt(dayKeys[i]);
+            out.writeLong(dayWorkMillis[i]);
+            out.writeInt(dayBreaksCompleted[i]);
+            out.writeInt(dayBreaksInterrupted[i]);
+            out.writeInt(dayLongestStreak[i]);
+        }
+        for (int i = 0; i < WEEK_SLOTS; i++) {
+            out.writeInt(weekKeys[i]);
+            out.writeLong(weekWorkMillis[i]);
+            out.writeInt(weekBreaksCompleted[i]);
+            out.writeInt(weekBreaksInterrupted[i]);
+            out.writeInt(weekLongestStreak[i]);
+        }
+    }
+
+    private void readState(DataInputStream in) throws IOException {
+        workStartMillis = in.readLong();
+        breakOpen = in.readBoolean();
+        currentStreak = in.readInt();
+        journalRecords = in.readLong();
+        for (int i = 0; i < DAY_SLOTS; i++) {
+            dayKeys[i] = in.readInt();
+            dayWorkMillis[i] = in.readLong();
+            dayBreaksCompleted[i] = in.readInt();
+            dayBreaksInterrupted[i] = in.readInt();
+            dayLongestStreak[i] = in.readInt();
+        }
+        for (int i = 0; i < WEEK_SLOTS; i++) {
+            weekKeys[i] = in.readInt();
+            weekWorkMillis[i] = in.readLong();
+            weekBreaksCompleted[i] = in.readInt();
+            weekBreaksInterrupted[i] = in.readInt();
+            weekLongestStreak[i] = in.readInt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.eye;
+
+/**
+ * Coalesces {@link ServiceState} updates so the UI sees at most one per frame, and none while
+ * it is in the background. Only the latest state is kept; it is delivered on the next frame
+ * after the UI becomes (or is) active. Single-threaded: call everything from the UI thread.
+ */
+public final class StateCoalescer {
+
+    /** Requests a single call to {@link #onFrame()} on the next frame (Choreographer on the device). */
+    public interface FrameScheduler {
+        void requestFrame();
+    }
+
+    public interface Sink {
+        void onState(ServiceState state);
+    }
+
+    private final FrameScheduler frameScheduler;
+    private final Sink sink;
+
+    private ServiceState pending;
+    private ServiceState delivered;
+    private boolean active;
+    private boolean frameRequested;
+    private long deliveryCount;
+
+    public StateCoalescer(FrameScheduler frameScheduler, Sink sink) {
+        this.frameScheduler = frameScheduler;
+        this.sink = sink;
+    }
+
+    /** Accepts a new state; replaces any state not yet delivered. */
+    public void offer(ServiceState state) {
+        pending = state;
+        requestFrameIfNeeded();
+    }
+
+    /**
+     * UI visibility: while inactive nothing is delivered and no frames are requested. Becoming
+     * active again forgets the last delivered state: the UI stopped its own rendering meanwhile, so
+     * the next state is delivered even if it did not change.
+     */
+    public void setActive(boolean active) {
+        if (active && !this.active) delivered = null;
+        this.active = active;
+        requestFrameIfNeeded();
+    }
+
+    /** Called once per requested frame; delivers the latest state if it changed. */
+    public void onFrame() {
+        frameRequested = false;
+        if (!active || pending == null) return;
+        ServiceState state = pending;
+        pending = null;
+        if (state.equals(delivered)) return;
+        delivered = state;
+        deliveryCount++;
+        sink.onState(state);
+    }
+
+    private void requestFrameIfNeeded() {
+        if (active && pending != null && !frameRequested) {
+            frameRequested = true;
+            frameScheduler.requestFrame();
+        }
+    }
+
+    /** @return Last state handed to the sink, or null if none yet. */
+    public ServiceState getDelivered() {
+        return delivered;
+    }
+
+    public long getDeliveryCount() {
+        return deliveryCount;
+    }
+}
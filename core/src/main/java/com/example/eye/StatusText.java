@@ -0,0 +1,27 @@
+package com.example.eye;
+
+/**
+ * Status strings shown in the notification and in MainActivity. All of them are constants, so
+ * nothing here allocates. The per-second countdown line itself is written by
+ * {@link CountdownFormatter}.
+ */
+public final class StatusText {
+
+    private StatusText() {
+    }
+
+    /** @return Content text of the foreground notification for {@code phase}. */
+    public static String notificationText(CycleEngine.Phase phase) {
+        switch (phase) {
+            case WORK:
+                return "Status: Working...";
+            case PAUSED:
+                return "Status: Paused while the screen is off";
+            case BREAK_VIBRATING:
+            case BREAK:
+                return "Status: Break Time...";
+            default:
+                return "Eye Blinker Active - Preparing...";
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.eye;
+
+/**
+ * Alerts emitted by {@link CycleEngine} on phase transitions.
+ */
+public enum VibrationFeedbackType {
+    CONTINUOUS_AFTER_WORK(1),  // For the one-shot, user-duration vibration when break starts
+    INTERVAL_BACK_TO_WORK(2),  // For the fixed interval pattern when rest ends
+    CATCH_UP_SUMMARY(3);       // One short alert for several boundaries missed while the device slept
+
+    /** Higher wins: a back-to-work alert cuts a still running break vibration short. */
+    public final int priority;
+
+    VibrationFeedbackType(int priority) {
+        this.priority = priority;
+    }
+}
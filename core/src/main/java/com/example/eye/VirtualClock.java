@@ -0,0 +1,104 @@
+package com.example.eye;
+
+/**
+ * Simulated time for running the cycle engine without Android and faster than real time.
+ * Acts as both the {@link Clock} and the {@link WakeupScheduler}: time only moves when the
+ * caller advances it, and the pending wakeup is delivered synchronously as time passes it.
+ */
+public final class VirtualClock implements Clock, WakeupScheduler {
+
+    private static final long NO_WAKEUP = Long.MIN_VALUE;
+
+    private long now;
+    private long pendingAt = NO_WAKEUP;
+    private Runnable wakeupTarget;
+
+    /** @param startElapsed Initial value of {@link #elapsedRealtime()}. */
+    public VirtualClock(long startElapsed) {
+        this.now = startElapsed;
+    }
+
+    /** Sets what runs when a wakeup is delivered, typically {@code engine::onWakeup}. */
+    public void setWakeupTarget(Runnable wakeupTarget) {
+        this.wakeupTarget = wakeupTarget;
+    }
+
+    @Override
+    public long elapsedRealtime() {
+        return now;
+    }
+
+    @Override
+    public void scheduleWakeup(long triggerAtElapsedMillis) {
+        pendingAt = triggerAtElapsedMillis;
+    }
+
+    @Override
+    public void cancelWakeup() {
+        pendingAt = NO_WAKEUP;
+    }
+
+    public boolean hasPendingWakeup() {
+        return pendingAt != NO_WAKEUP;
+    }
+
+    /** @return Trigger time of the pending wakeup; only meaningful if {@link #hasPendingWakeup()}. */
+    public long getPendingWakeup() {
+        return pendingAt;
+    }
+
+    /**
+     * Jumps to the pending wakeup and delivers it.
+     * @return false if there was nothing to deliver.
+     */
+    public boolean runNextWakeup() {
+        if (pendingAt == NO_WAKEUP) return false;
+        // A wakeup requested in the past is delivered immediately, time never goes backwards
+        now = Math.max(now, pendingAt);
+        pendingAt = NO_WAKEUP;
+        if (wakeupTarget != null) wakeupTarget.run();
+        return true;
+    }
+
+    /**
+     * Moves time forward to {@code untilElapsed}, delivering every wakeup that falls due on the way.
+     * @return Number of wakeups delivered.
+     */
+    public long advanceTo(long untilElapsed) {
+        long delivered = 0;
+        while (pendingAt != NO_WAKEUP && pendingAt <= untilElapsed) {
+            runNextWakeup();
+            delivered++;
+        }
+        now = Math.max(now, untilElapsed);
+        return delivered;
+    }
+
+    /**
+     * Moves time forward by {@code millis} without delivering anything, as if the device was
+     * suspended, then delivers the overdue wakeup (if any) once, as when the device wakes up.
+     * @return Number of wakeups delivered (0 or 1).
+     */
+    public long sleepBy(long millis) {
+        suspendTo(now + millis);
+        return wakeUp();
+    }
+
+    /** Moves time forward to {@code untilElapsed} without delivering anything, as if the device was suspended. */
+    public void suspendTo(long untilElapsed) {
+        now = Math.max(now, untilElapsed);
+    }
+
+    /**
+     * Delivers the pending wakeup once if it is overdue, as when a suspended device wakes up.
+     * @return Number of wakeups delivered (0 or 1).
+     */
+    public long wakeUp() {
+        return pendingAt != NO_WAKEUP && pendingAt <= now && runNextWakeup() ? 1 : 0;
+    }
+
+    /** Same as {@link #advanceTo(long)}, relative to the current time. */
+    public long advanceBy(long millis) {
+        return advanceTo(now + millis);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.eye;
+
+/**
+ * Schedules the single pending wakeup of the cycle engine.
+ * Only one wakeup is ever outstanding: scheduling a new one replaces the previous one.
+ */
+public interface WakeupScheduler {
+
+    /**
+     * Requests a wakeup at the given time.
+     * @param triggerAtElapsedMillis Trigger time on the {@link Clock#elapsedRealtime()} time base.
+     */
+    void scheduleWakeup(long triggerAtElapsedMillis);
+
+    /** Cancels the pending wakeup, if any. */
+    void cancelWakeup();
+}
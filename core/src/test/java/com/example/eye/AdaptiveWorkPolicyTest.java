@@ -0,0 +1,178 @@
+package com.example.eye;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link AdaptiveWorkPolicy}: replays scripted screen-event traces against a
+ * {@link CycleEngine} on a {@link VirtualClock}.
+ */
+public class AdaptiveWorkPolicyTest {
+
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+
+    private VirtualClock time;
+    private CycleEngine engine;
+    private AdaptiveWorkPolicy policy;
+    private final List<CycleEngine.Phase> phases = new ArrayList<>();
+    private final List<CycleEngine.Phase> previousPhases = new ArrayList<>();
+    private final List<VibrationFeedbackType> feedback = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        time = new VirtualClock(1_000_000L);
+        engine = new CycleEngine(time, time, new CycleEngine.Listener() {
+            @Override
+            public void onPhaseStarted(CycleEngine.Phase phase, CycleEngine.Phase previous, long phaseEndElapsed) {
+                phases.add(phase);
+                previousPhases.add(previous);
+                policy.onPhaseStarted(phase); // Last, like the service
+            }
+
+            @Override
+            public void onFeedback(VibrationFeedbackType type) {
+                feedback.add(type);
+            }
+        });
+        policy = new AdaptiveWorkPolicy(time, engine);
+        time.setWakeupTarget(engine::onWakeup);
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+    }
+
+    /**
+     * Replays a trace of {@code "<minutes since start> <OFF|ON|PRESENT>"} lines, advancing the
+     * virtual clock (and delivering any due wakeups) before each event.
+     */
+    private void replay(String... trace) {
+        long start = time.elapsedRealtime();
+        for (String line : trace) {
+            String[] parts = line.split(" ");
+            time.advanceTo(start + (long) (Double.parseDouble(parts[0]) * MINUTE));
+            switch (parts[1]) {
+                case "OFF":
+                    policy.onScreenOff();
+                    break;
+                case "ON":
+                    policy.onScreenOn();
+                    break;
+                case "PRESENT":
+                    policy.onUserPresent();
+                    break;
+                default:
+                    throw new IllegalArgumentException(line);
+            }
+        }
+    }
+
+    @Test
+    public void shortScreenOffKeepsRemainingWorkTime() {
+        long start = time.elapsedRealtime();
+        replay("5 OFF", "6 ON", "6.5 PRESENT");
+
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        // 15 minutes were left when the screen went off; they are still left 1.5 minutes later
+        assertEquals(start + 21_500 * MINUTE / 1000, engine.getPhaseEndElapsed());
+        assertEquals(90 * SECOND, policy.getPausedMillis());
+        assertEquals(0, policy.getCreditedBreaks());
+        assertFalse(policy.isLastPauseCredited());
+    }
+
+    @Test
+    public void noWakeupsWhileScreenIsOff() {
+        replay("5 OFF");
+        assertEquals(CycleEngine.Phase.PAUSED, engine.getPhase());
+        assertFalse(time.hasPendingWakeup());
+
+        long wakeups = engine.getWakeupCount();
+        time.advanceBy(8 * 60 * MINUTE); // A whole night in the drawer
+        assertEquals(wakeups, engine.getWakeupCount());
+        assertTrue(feedback.isEmpty());
+    }
+
+    @Test
+    public void lockScreenGlanceDoesNotResume() {
+        replay("5 OFF", "7 ON", "7.2 OFF");
+        assertEquals(CycleEngine.Phase.PAUSED, engine.getPhase());
+        assertFalse(time.hasPendingWakeup());
+    }
+
+    @Test
+    public void screenOffLongerThanBreakCountsAsBreak() {
+        replay("12 OFF", "15 PRESENT");
+
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        // Fresh work phase from the moment the user came back
+        assertEquals(time.elapsedRealtime() + 20 * MINUTE, engine.getPhaseEndElapsed());
+        assertEquals(1, policy.getCreditedBreaks());
+        assertTrue(policy.isLastPauseCredited());
+        assertTrue(feedback.isEmpty()); // No break alert for a break already taken
+    }
+
+    @Test
+    public void screenOffDuringBreakHoldsItsWakeups() {
+        // Break starts at 20, screen goes off during it and stays off past its end at 22
+        replay("21 OFF");
+        assertEquals(CycleEngine.Phase.BREAK, engine.getPhase());
+        assertTrue(engine.isBreakHeld());
+        assertFalse(time.hasPendingWakeup());
+        long wakeups = engine.getWakeupCount();
+        time.advanceBy(5 * MINUTE);
+
+        assertEquals(wakeups, engine.getWakeupCount());
+        assertEquals(List.of(VibrationFeedbackType.CONTINUOUS_AFTER_WORK), feedback); // No back-to-work in the pocket
+
+        // Back after the break is over: work starts now, silently
+        replay("26 PRESENT");
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertFalse(engine.isBreakHeld());
+        assertEquals(time.elapsedRealtime() + 20 * MINUTE, engine.getPhaseEndElapsed());
+        assertEquals(1, feedback.size());
+    }
+
+    @Test
+    public void breakContinuesWhenBackBeforeItsEnd() {
+        long start = time.elapsedRealtime();
+        // Off during the 10s vibration (20:00 - 20:10), back at 21: one minute of break left
+        replay("20.1 OFF", "21 PRESENT");
+
+        assertEquals(CycleEngine.Phase.BREAK, engine.getPhase()); // The vibration phase ended while held
+        assertEquals(start + 22 * MINUTE, engine.getPhaseEndElapsed());
+        assertEquals(start + 22 * MINUTE, time.getPendingWakeup());
+
+        time.advanceTo(start + 22 * MINUTE);
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertEquals(VibrationFeedbackType.INTERVAL_BACK_TO_WORK, feedback.get(feedback.size() - 1));
+        assertEquals(start + 42 * MINUTE, engine.getPhaseEndElapsed());
+    }
+
+    @Test
+    public void breakHeldDuringItsVibrationEndsStraightIntoWork() {
+        long start = time.elapsedRealtime();
+        // Off 5s into the vibration (20:00 - 20:10), back at 30, long after the break ended at 22
+        replay("20.0833 OFF", "30 PRESENT");
+
+        // The service sees the vibration end into work: the break is over and must be journaled as completed
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, previousPhases.get(previousPhases.size() - 1));
+        assertTrue(time.elapsedRealtime() >= start + 22 * MINUTE);
+        assertEquals(List.of(VibrationFeedbackType.CONTINUOUS_AFTER_WORK), feedback);
+    }
+
+    @Test
+    public void workTimeOnlyAccumulatesWhileLooking() {
+        long start = time.elapsedRealtime();
+        // 20 minutes of looking split by short pauses, the break is only due after all of it
+        replay("4 OFF", "5 PRESENT", "9 OFF", "10 PRESENT", "14 OFF", "15 PRESENT");
+        time.advanceTo(start + 22 * MINUTE);
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        time.advanceTo(start + 23 * MINUTE);
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, engine.getPhase());
+        assertEquals(3 * MINUTE, policy.getPausedMillis());
+    }
+}
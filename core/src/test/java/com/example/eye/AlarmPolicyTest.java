@@ -0,0 +1,19 @@
+package com.example.eye;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link AlarmPolicy}.
+ */
+public class AlarmPolicyTest {
+
+    @Test
+    public void fallsBackWhenExactAlarmsDenied() {
+        assertEquals(AlarmPolicy.EXACT, AlarmPolicy.select(30, true, false));
+        assertEquals(AlarmPolicy.EXACT, AlarmPolicy.select(34, true, true));
+        assertEquals(AlarmPolicy.WINDOWED, AlarmPolicy.select(34, true, false));
+        assertEquals(AlarmPolicy.HANDLER, AlarmPolicy.select(34, false, true));
+    }
+}
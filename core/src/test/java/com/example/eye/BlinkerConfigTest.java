@@ -0,0 +1,91 @@
+package com.example.eye;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link BlinkerConfig} parsing and validation.
+ */
+public class BlinkerConfigTest {
+
+    @Test
+    public void parsesMinutesAndSeconds() {
+        BlinkerConfig config = BlinkerConfig.parse("20", "2", "15");
+
+        assertEquals(20 * 60, config.workTimeSec);
+        assertEquals(2 * 60, config.breakTimeSec);
+        assertEquals(15, config.vibrationTimeSec);
+        assertEquals(20 * 60 * 1000L, config.getWorkMillis());
+        assertEquals(15 * 1000L, config.getVibrationMillis());
+    }
+
+    @Test
+    public void trimsWhitespace() {
+        assertEquals(new BlinkerConfig(60, 120, 5), BlinkerConfig.parse(" 1 ", "2\n", "5"));
+    }
+
+    @Test
+    public void rejectsEmptyFields() {
+        assertInvalid("Please fill all time fields", "", "2", "10");
+        assertInvalid("Please fill all time fields", "20", null, "10");
+        assertInvalid("Please fill all time fields", "20", "2", "  ");
+    }
+
+    @Test
+    public void rejectsNonNumbers() {
+        assertInvalid("Invalid number format", "twenty", "2", "10");
+        assertInvalid("Invalid number format", "20", "2.5", "10");
+        assertInvalid("Invalid number format", "99999999999", "2", "10");
+    }
+
+    @Test
+    public void rejectsNonPositiveValues() {
+        assertInvalid("Time values must be positive", "0", "2", "10");
+        assertInvalid("Time values must be positive", "20", "-1", "10");
+        assertInvalid("Time values must be positive", "20", "2", "0");
+    }
+
+    @Test
+    public void rejectsMinutesThatOverflowSeconds() {
+        assertInvalid("Time values are too large", "2000000000", "2", "10");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRejectsNonPositiveValues() {
+        new BlinkerConfig(60, 0, 10);
+    }
+
+    @Test
+    public void backToWorkPatternIsValidatedAndTrimmed() {
+        BlinkerConfig config = BlinkerConfig.DEFAULT.withBackToWorkPattern("  +300 -200 +300  ");
+        assertEquals("+300 -200 +300", config.backToWorkPattern);
+        assertSame(config, config.withBackToWorkPattern("+300 -200 +300"));
+        assertNotEquals(BlinkerConfig.DEFAULT, config);
+        try {
+            BlinkerConfig.DEFAULT.withBackToWorkPattern("+300 beep");
+            fail("Expected an invalid pattern");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid vibration pattern at 6: Expected '+', '-' or '('", e.getMessage());
+        }
+    }
+
+    @Test
+    public void catchUpPolicyDefaultsToSingleSummary() {
+        assertEquals(CycleEngine.CatchUpPolicy.SINGLE_SUMMARY, BlinkerConfig.DEFAULT.catchUp);
+        BlinkerConfig skip = BlinkerConfig.DEFAULT.withCatchUp(CycleEngine.CatchUpPolicy.SKIP);
+        assertEquals(CycleEngine.CatchUpPolicy.SKIP, skip.catchUp);
+        assertNotEquals(BlinkerConfig.DEFAULT, skip);
+        assertSame(skip, skip.withPlan(SchedulePlan.Preset.CUSTOM));
+        assertEquals(CycleEngine.CatchUpPolicy.SKIP, skip.withAdaptive(true).catchUp);
+    }
+
+    private static void assertInvalid(String message, String work, String rest, String vibration) {
+        try {
+            BlinkerConfig.parse(work, rest, vibration);
+            fail("Expected " + message);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.eye;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link CountdownFormatter} and the allocation-free tick path.
+ */
+public class CountdownFormatterTest {
+
+    private static String format(CountdownFormatter formatter, CycleEngine.Phase phase, long remainingMillis) {
+        int length = formatter.format(phase, remainingMillis);
+        return new String(formatter.getBuffer(), 0, length);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    public void labelFollowsPhase() {
+        CountdownFormatter formatter = new CountdownFormatter();
+        assertEquals("Working: 12:34", format(formatter, CycleEngine.Phase.WORK, 12 * 60_000L + 34_999L));
+        assertEquals("Break Rest: 01:00", format(formatter, CycleEngine.Phase.BREAK_VIBRATING, 60_000L));
+        assertEquals("Break Rest: 00:00", format(formatter, CycleEngine.Phase.BREAK, -5));
+        assertEquals("Paused (screen off)", format(formatter, CycleEngine.Phase.PAUSED, 60_000L));
+    }
+
+    @Test
+    public void formatsEverySecondAsMinutesAndSeconds() {
+        CountdownFormatter formatter = new CountdownFormatter();
+        for (long seconds = 0; seconds < 2 * 3600; seconds++) {
+            // Minutes wrap at an hour
+            String expected = String.format(Locale.ROOT, "Working: %02d:%02d", seconds / 60 % 60, seconds % 60);
+            assertEquals(expected, format(formatter, CycleEngine.Phase.WORK, seconds * 1000 + 500));
+        }
+    }
+
+    /** What MainActivity and the service do every second while a phase runs. */
+    private static long tick(CountdownFormatter formatter, PhaseNotifier notifier, long remainingMillis) {
+        int length = formatter.format(CycleEngine.Phase.WORK, remainingMillis);
+        notifier.update(StatusText.notificationText(CycleEngine.Phase.WORK), 1_000_000L); // Unchanged, no post
+        return length;
+    }
+
+    @Test
+    public void tickDoesNotAllocateAfterWarmUp() {
+        CountdownFormatter formatter = new CountdownFormatter();
+        PhaseNotifier notifier = new PhaseNotifier((text, end) -> { });
+        long sink = 0;
+        for (int i = 0; i < 200_000; i++) sink += tick(formatter, notifier, i * 1000L);
+
+        // What reading the allocation counter itself costs
+        long baselineStart = allocatedBytes();
+        long baseline = allocatedBytes() - baselineStart;
+
+        int ticks = 100_000;
+        long start = allocatedBytes();
+        for (int i = 0; i < ticks; i++) sink += tick(formatter, notifier, (ticks - i) * 1000L);
+        long allocated = allocatedBytes() - start - baseline;
+
+        assertTrue(sink > 0);
+        assertEquals("Bytes allocated per " + ticks + " ticks", 0, Math.max(0, allocated));
+        assertEquals(1, notifier.getNotifyCount());
+    }
+}
@@ -0,0 +1,424 @@
+package com.example.eye;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link CycleEngine}: drives it with a {@link VirtualClock} and counts how often it wakes up.
+ */
+public class CycleEngineTest {
+
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long HOUR = 60 * MINUTE;
+
+    private VirtualClock time;
+    private CycleEngine engine;
+    private final List<CycleEngine.Phase> phases = new ArrayList<>();
+    private final List<VibrationFeedbackType> feedback = new ArrayList<>();
+    private final List<Long> catchUps = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        time = new VirtualClock(1_000_000L);
+        engine = new CycleEngine(time, time, new CycleEngine.Listener() {
+            @Override
+            public void onPhaseStarted(CycleEngine.Phase phase, CycleEngine.Phase previous, long phaseEndElapsed) {
+                phases.add(phase);
+            }
+
+            @Override
+            public void onFeedback(VibrationFeedbackType type) {
+                feedback.add(type);
+            }
+
+            @Override
+            public void onCatchUp(long missedBoundaries) {
+                catchUps.add(missedBoundaries);
+            }
+        });
+        time.setWakeupTarget(engine::onWakeup);
+    }
+
+    @Test
+    public void wakesOnlyAtPhaseBoundaries() {
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.advanceBy(8 * HOUR);
+
+        long cycleMillis = 22 * MINUTE;
+        long fullCycles = 8 * HOUR / cycleMillis;
+        // Three boundaries per cycle (break start, vibration end, back to work) instead of one wakeup per second
+        assertTrue(engine.getWakeupCount() >= 3 * fullCycles);
+        assertTrue(engine.getWakeupCount() <= 3 * (fullCycles + 1));
+        assertTrue(engine.getWakeupCount() < 8 * HOUR / SECOND / 100);
+    }
+
+    @Test
+    public void phasesFollowWorkVibrationBreakOrder() {
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.advanceBy(44 * MINUTE);
+
+        assertEquals(CycleEngine.Phase.WORK, phases.get(0));
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, phases.get(1));
+        assertEquals(CycleEngine.Phase.BREAK, phases.get(2));
+        assertEquals(CycleEngine.Phase.WORK, phases.get(3));
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, phases.get(4));
+        assertEquals(CycleEngine.Phase.BREAK, phases.get(5));
+        assertEquals(CycleEngine.Phase.WORK, phases.get(6));
+    }
+
+    @Test
+    public void alertsMatchTransitions() {
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        assertTrue(feedback.isEmpty()); // No alert for the very first work phase
+
+        time.advanceBy(20 * MINUTE);
+        assertEquals(1, feedback.size());
+        assertEquals(VibrationFeedbackType.CONTINUOUS_AFTER_WORK, feedback.get(0));
+
+        time.advanceBy(10 * SECOND); // Vibration end is silent
+        assertEquals(1, feedback.size());
+
+        time.advanceBy(2 * MINUTE - 10 * SECOND);
+        assertEquals(2, feedback.size());
+        assertEquals(VibrationFeedbackType.INTERVAL_BACK_TO_WORK, feedback.get(1));
+    }
+
+    @Test
+    public void simulatesMillionsOfCyclesFasterThanRealTime() {
+        CycleEngine bare = new CycleEngine(time, time, (phase, previous, end) -> { });
+        time.setWakeupTarget(bare::onWakeup);
+        bare.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+
+        long cycles = 2_000_000;
+        long startNanos = System.nanoTime();
+        for (long i = 0; i < 3 * cycles; i++) {
+            time.runNextWakeup();
+        }
+        long tookMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        assertEquals(1 + 3 * cycles, bare.getTransitionCount());
+        assertEquals(CycleEngine.Phase.WORK, bare.getPhase());
+        // Roughly 84 years of simulated cycles; generous bound so slow CI machines pass
+        assertTrue("Simulation took " + tookMillis + "ms", tookMillis < 5_000);
+    }
+
+    @Test
+    public void phaseEndMatchesConfiguredDurations() {
+        long start = time.elapsedRealtime();
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        assertEquals(start + 20 * MINUTE, engine.getPhaseEndElapsed());
+
+        time.advanceTo(start + 20 * MINUTE);
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, engine.getPhase());
+        assertEquals(start + 20 * MINUTE + 10 * SECOND, engine.getPhaseEndElapsed());
+
+        time.advanceTo(start + 20 * MINUTE + 10 * SECOND);
+        assertEquals(CycleEngine.Phase.BREAK, engine.getPhase());
+        assertEquals(start + 22 * MINUTE, engine.getPhaseEndElapsed());
+    }
+
+    @Test
+    public void lateWakeupsDoNotAccumulateDrift() {
+        long anchor = time.elapsedRealtime();
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        Random random = new Random(42);
+
+        // Deliver every boundary 0..2s late, as handler latency and alert setup would, for a whole shift
+        for (int i = 0; i < 3 * 22; i++) {
+            long due = time.getPendingWakeup();
+            time.cancelWakeup();
+            time.advanceTo(due + random.nextInt(2000));
+            engine.onWakeup();
+        }
+
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertEquals(anchor + 22 * 22 * MINUTE + 20 * MINUTE, engine.getPhaseEndElapsed());
+        assertEquals(anchor, engine.getSessionAnchorElapsed());
+        assertEquals(3 * 22, engine.getLatenessHistogram().getCount());
+        assertTrue(engine.getLatenessHistogram().getMax() < 2000);
+        assertTrue(engine.getLatenessHistogram().getPercentile(99) <= engine.getLatenessHistogram().getMax());
+    }
+
+    @Test
+    public void onTimeWakeupsRecordZeroLateness() {
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.advanceBy(8 * HOUR);
+
+        assertEquals(engine.getWakeupCount(), engine.getLatenessHistogram().getCount());
+        assertEquals(0, engine.getLatenessHistogram().getMax());
+    }
+
+    @Test
+    public void vibrationLongerThanBreakSkipsVibrationPhase() {
+        engine.start(MINUTE, 5 * MINUTE, 2 * MINUTE);
+        time.advanceBy(MINUTE);
+
+        assertEquals(CycleEngine.Phase.BREAK, engine.getPhase());
+        assertEquals(time.elapsedRealtime() + 2 * MINUTE, engine.getPhaseEndElapsed());
+        assertEquals(VibrationFeedbackType.CONTINUOUS_AFTER_WORK, feedback.get(0));
+    }
+
+    @Test
+    public void earlyWakeupReschedulesSameBoundary() {
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        long boundary = engine.getPhaseEndElapsed();
+        time.advanceTo(boundary - 5 * SECOND);
+        engine.onWakeup();
+
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertEquals(boundary, time.getPendingWakeup());
+    }
+
+    @Test
+    public void stopCancelsPendingWakeup() {
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        engine.stop();
+
+        assertFalse(time.hasPendingWakeup());
+        assertEquals(CycleEngine.Phase.IDLE, engine.getPhase());
+        engine.onWakeup();
+        assertEquals(0, engine.getWakeupCount());
+    }
+
+    @Test
+    public void longSuspendJumpsToCurrentPhaseWithOneSummaryAlert() {
+        long anchor = time.elapsedRealtime();
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        phases.clear();
+
+        // Asleep through 3 full cycles and into the next break's vibration
+        assertEquals(1, time.sleepBy(3 * 22 * MINUTE + 20 * MINUTE + 5 * SECOND));
+
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, engine.getPhase());
+        assertEquals(anchor + 3 * 22 * MINUTE + 20 * MINUTE + 10 * SECOND, engine.getPhaseEndElapsed());
+        assertEquals(List.of(CycleEngine.Phase.BREAK_VIBRATING), phases); // Never stepped through the missed phases
+        assertEquals("alerting boundaries only", List.of(3L * 2 + 1), catchUps);
+        assertEquals(List.of(VibrationFeedbackType.CATCH_UP_SUMMARY), feedback);
+        assertEquals(1, engine.getCatchUpCount());
+        assertEquals(anchor, engine.getSessionAnchorElapsed());
+
+        // Back to normal stepping afterwards
+        time.advanceBy(10 * SECOND);
+        assertEquals(CycleEngine.Phase.BREAK, engine.getPhase());
+        assertEquals(1, feedback.size());
+    }
+
+    @Test
+    public void skipPolicyCatchesUpSilently() {
+        engine.setCatchUpPolicy(CycleEngine.CatchUpPolicy.SKIP);
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.sleepBy(3 * HOUR);
+
+        assertEquals(1, catchUps.size());
+        assertTrue(feedback.isEmpty());
+        // 3h = 8 periods of 22m + 4m of work
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+    }
+
+    @Test
+    public void replayLastPlaysMostRecentMissedAlert() {
+        engine.setCatchUpPolicy(CycleEngine.CatchUpPolicy.REPLAY_LAST);
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+
+        // Wakes during a plain break: the last boundary with an alert was the start of the break
+        time.sleepBy(22 * MINUTE + 21 * MINUTE);
+        assertEquals(CycleEngine.Phase.BREAK, engine.getPhase());
+        assertEquals(List.of(VibrationFeedbackType.CONTINUOUS_AFTER_WORK), feedback);
+
+        // Wakes during work: back to work was the last alert
+        time.sleepBy(2 * 22 * MINUTE + 2 * MINUTE);
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertEquals(VibrationFeedbackType.INTERVAL_BACK_TO_WORK, feedback.get(1));
+        assertEquals(2, feedback.size());
+    }
+
+    @Test
+    public void catchUpHandlesJumpsFromMinutesToDays() {
+        SchedulePlan pomodoro = SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 10 * SECOND, 0);
+        long[] jumps = {3 * MINUTE, 31 * MINUTE, 7 * HOUR + 13 * MINUTE, 3 * 24 * HOUR + 17 * SECOND, 40 * 24 * HOUR};
+        for (long jump : jumps) {
+            long anchor = time.elapsedRealtime();
+            engine.start(pomodoro);
+            long wakeupsBefore = engine.getWakeupCount();
+            feedback.clear();
+            time.sleepBy(jump);
+
+            // Same answer as a fresh lookup in the timeline, in a single wakeup and at most one alert
+            long offset = jump % pomodoro.getPeriodMillis();
+            int expected = pomodoro.segmentAt(offset);
+            assertEquals("jump " + jump, pomodoro.getPhase(expected), engine.getPhase());
+            long periodStart = anchor + jump / pomodoro.getPeriodMillis() * pomodoro.getPeriodMillis();
+            assertEquals("jump " + jump, periodStart + pomodoro.getSegmentEnd(expected), engine.getPhaseEndElapsed());
+            assertTrue("jump " + jump, engine.getWakeupCount() - wakeupsBefore <= 1);
+            assertTrue("jump " + jump, feedback.size() <= 1);
+        }
+    }
+
+    @Test
+    public void singleLateBoundaryIsNotACatchUp() {
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.sleepBy(20 * MINUTE + 3 * SECOND); // Late, but still inside the vibration phase
+
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, engine.getPhase());
+        assertTrue(catchUps.isEmpty());
+        assertEquals(List.of(VibrationFeedbackType.CONTINUOUS_AFTER_WORK), feedback);
+    }
+
+    @Test
+    public void slightlyLateWakeupOverShortVibrationIsNotACatchUp() {
+        long start = time.elapsedRealtime();
+        engine.start(20 * MINUTE, 3 * SECOND, 2 * MINUTE);
+        // 5s late (within the windowed alarm policy): the 3s vibration segment is already over
+        time.sleepBy(20 * MINUTE + 5 * SECOND);
+
+        assertTrue(catchUps.isEmpty());
+        assertEquals(0, engine.getCatchUpCount());
+        assertEquals(List.of(VibrationFeedbackType.CONTINUOUS_AFTER_WORK), feedback);
+        assertEquals(CycleEngine.Phase.BREAK, engine.getPhase());
+        assertEquals(start + 22 * MINUTE, engine.getPhaseEndElapsed());
+
+        // Late again at the end of the break: back to work as usual
+        time.sleepBy(2 * MINUTE);
+        assertTrue(catchUps.isEmpty());
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertEquals(VibrationFeedbackType.INTERVAL_BACK_TO_WORK, feedback.get(1));
+    }
+
+    @Test
+    public void breakVibrationCountsDownToEndOfBreak() {
+        long start = time.elapsedRealtime();
+        engine.start(SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 10 * SECOND, 0));
+        assertEquals(start + 25 * MINUTE, engine.getCountdownEndElapsed());
+
+        time.advanceTo(start + 25 * MINUTE);
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, engine.getPhase());
+        assertEquals(start + 25 * MINUTE + 10 * SECOND, engine.getPhaseEndElapsed());
+        assertEquals(start + 30 * MINUTE, engine.getCountdownEndElapsed());
+        time.advanceBy(10 * SECOND);
+        assertEquals(start + 30 * MINUTE, engine.getCountdownEndElapsed());
+
+        // The long break after the fourth pomodoro, in the second period
+        long fourthBreak = start + SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 10 * SECOND, 0).getPeriodMillis()
+                + 3 * 30 * MINUTE + 25 * MINUTE;
+        time.advanceTo(fourthBreak);
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, engine.getPhase());
+        assertEquals(fourthBreak + 20 * MINUTE, engine.getCountdownEndElapsed());
+    }
+
+    @Test
+    public void reconfigureKeepsTimeWorkedAndRearmsWakeup() {
+        long start = time.elapsedRealtime();
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.advanceBy(5 * MINUTE);
+
+        assertTrue(engine.reconfigure(SchedulePlan.of(SchedulePlan.Preset.CUSTOM, 30 * MINUTE, 10 * SECOND, 5 * MINUTE)));
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertEquals(start + 30 * MINUTE, engine.getPhaseEndElapsed());
+        assertEquals(start + 30 * MINUTE, time.getPendingWakeup());
+        assertTrue(feedback.isEmpty());
+
+        // Later phases use the new durations, anchored to the same session start
+        time.advanceTo(start + 30 * MINUTE);
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, engine.getPhase());
+        time.advanceTo(start + 35 * MINUTE);
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertEquals(start + 65 * MINUTE, engine.getPhaseEndElapsed());
+        assertEquals(start, engine.getSessionAnchorElapsed());
+    }
+
+    @Test
+    public void reconfigureEndsWorkAlreadyLongerThanNewLength() {
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.advanceBy(15 * MINUTE);
+        long now = time.elapsedRealtime();
+
+        engine.reconfigure(SchedulePlan.of(SchedulePlan.Preset.CUSTOM, 10 * MINUTE, 10 * SECOND, 2 * MINUTE));
+        assertEquals(now, engine.getPhaseEndElapsed());
+        time.advanceBy(0);
+
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, engine.getPhase());
+        assertEquals(now + 10 * SECOND, engine.getPhaseEndElapsed());
+        assertEquals(List.of(VibrationFeedbackType.CONTINUOUS_AFTER_WORK), feedback);
+        assertTrue(catchUps.isEmpty());
+    }
+
+    @Test
+    public void reconfigureDuringBreakKeepsTimeRested() {
+        long start = time.elapsedRealtime();
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.advanceTo(start + 21 * MINUTE); // One minute into the break
+
+        engine.reconfigure(SchedulePlan.of(SchedulePlan.Preset.CUSTOM, 25 * MINUTE, 10 * SECOND, 5 * MINUTE));
+        assertEquals(CycleEngine.Phase.BREAK, engine.getPhase());
+        assertEquals(start + 25 * MINUTE, engine.getPhaseEndElapsed()); // 4 of the 5 minutes left
+
+        time.advanceTo(start + 25 * MINUTE);
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertEquals(start + 50 * MINUTE, engine.getPhaseEndElapsed());
+    }
+
+    @Test
+    public void reconfigureTurnsVibrationThatNoLongerFitsIntoBreak() {
+        long start = time.elapsedRealtime();
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.advanceTo(start + 20 * MINUTE + 5 * SECOND);
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, engine.getPhase());
+
+        // Vibration as long as the break: the plan has no separate vibration segment any more
+        engine.reconfigure(SchedulePlan.of(SchedulePlan.Preset.CUSTOM, 20 * MINUTE, 2 * MINUTE, 2 * MINUTE));
+        assertEquals(CycleEngine.Phase.BREAK, engine.getPhase());
+        assertEquals(start + 22 * MINUTE, engine.getPhaseEndElapsed());
+        assertEquals(List.of(VibrationFeedbackType.CONTINUOUS_AFTER_WORK), feedback); // Not replayed
+    }
+
+    @Test
+    public void reconfigureWhilePausedAppliesOnResume() {
+        long start = time.elapsedRealtime();
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.advanceBy(5 * MINUTE);
+        engine.pause();
+        time.advanceBy(10 * MINUTE);
+
+        engine.reconfigure(SchedulePlan.of(SchedulePlan.Preset.CUSTOM, 8 * MINUTE, 10 * SECOND, 2 * MINUTE));
+        assertEquals(CycleEngine.Phase.PAUSED, engine.getPhase());
+        assertFalse(time.hasPendingWakeup());
+
+        engine.resumeWork(false);
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertEquals(start + 15 * MINUTE + 3 * MINUTE, engine.getPhaseEndElapsed()); // 8 - 5 minutes left
+    }
+
+    @Test
+    public void reconfigureToAnotherPresetStartsOver() {
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.advanceBy(21 * MINUTE);
+        long now = time.elapsedRealtime();
+
+        assertFalse(engine.reconfigure(SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 10 * SECOND, 0)));
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertEquals(now, engine.getSessionAnchorElapsed());
+        assertEquals(now + 25 * MINUTE, engine.getPhaseEndElapsed());
+    }
+
+    @Test
+    public void reconfigureKeepsPomodoroPositionWhenVibrationChanges() {
+        SchedulePlan pomodoro = SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 10 * SECOND, 0);
+        long start = time.elapsedRealtime();
+        engine.start(pomodoro);
+        time.advanceTo(start + 2 * 30 * MINUTE + 10 * MINUTE); // Third pomodoro, 10 minutes in
+
+        engine.reconfigure(SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 30 * SECOND, 0));
+        assertEquals(CycleEngine.Phase.WORK, engine.getPhase());
+        assertEquals(start + 2 * 30 * MINUTE + 25 * MINUTE, engine.getPhaseEndElapsed());
+        time.advanceTo(start + 2 * 30 * MINUTE + 25 * MINUTE);
+        assertEquals(start + 2 * 30 * MINUTE + 25 * MINUTE + 30 * SECOND, engine.getPhaseEndElapsed());
+        assertEquals(start, engine.getSessionAnchorElapsed());
+    }
+}
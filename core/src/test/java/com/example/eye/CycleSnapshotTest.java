@@ -0,0 +1,148 @@
+package com.example.eye;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link CycleSnapshot} and resuming a {@link CycleEngine} from it.
+ */
+public class CycleSnapshotTest {
+
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static CycleEngine newEngine(VirtualClock time) {
+        CycleEngine engine = new CycleEngine(time, time, (phase, previous, end) -> { });
+        time.setWakeupTarget(engine::onWakeup);
+        return engine;
+    }
+
+    @Test
+    public void roundTripsThroughFile() throws IOException {
+        File file = tempFolder.newFile();
+        CycleSnapshot written = new CycleSnapshot(CycleEngine.Phase.BREAK_VIBRATING, SchedulePlan.Preset.POMODORO,
+                20 * MINUTE, 10 * SECOND, 2 * MINUTE, 123_456L, 100_000L, 1_700_000_000_000L);
+        written.write(file);
+
+        assertEquals(CycleSnapshot.SIZE, file.length());
+        CycleSnapshot read = CycleSnapshot.read(file);
+        assertNotNull(read);
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, read.phase);
+        assertEquals(SchedulePlan.Preset.POMODORO, read.preset);
+        assertEquals(20 * MINUTE, read.workMillis);
+        assertEquals(10 * SECOND, read.vibrationMillis);
+        assertEquals(2 * MINUTE, read.breakMillis);
+        assertEquals(123_456L, read.phaseEndElapsed);
+        assertEquals(100_000L, read.sessionAnchorElapsed);
+        assertEquals(1_700_000_000_000L, read.bootWallMillis);
+    }
+
+    @Test
+    public void tornOrMissingSnapshotIsIgnored() throws IOException {
+        File file = tempFolder.newFile();
+        assertNull(CycleSnapshot.read(file)); // Empty
+        assertNull(CycleSnapshot.read(new File(tempFolder.getRoot(), "missing")));
+
+        new CycleSnapshot(CycleEngine.Phase.WORK, MINUTE, 0, MINUTE, 1, 2, 3).write(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(20);
+            raf.write(0x7F);
+        }
+        assertNull(CycleSnapshot.read(file));
+
+        new CycleSnapshot(CycleEngine.Phase.WORK, SchedulePlan.Preset.EYE_REST, MINUTE, 0, MINUTE, 1, 2, 3).write(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(59); // The plan is covered by the CRC too
+            raf.write(0x01);
+        }
+        assertNull(CycleSnapshot.read(file));
+    }
+
+    @Test
+    public void resumedEngineMatchesUninterruptedOne() throws IOException {
+        File file = tempFolder.newFile();
+        VirtualClock time = new VirtualClock(5_000_000L);
+        CycleEngine original = newEngine(time);
+        original.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.advanceBy(3 * 22 * MINUTE + 20 * MINUTE + 5 * SECOND); // In the vibration of the 4th break
+        CycleSnapshot.of(original, 0).write(file);
+
+        // Process dies; the system restarts the service a few minutes later
+        long restartAt = time.elapsedRealtime() + 90 * SECOND;
+        time.advanceTo(restartAt);
+        VirtualClock restartedTime = new VirtualClock(restartAt);
+        CycleEngine restored = newEngine(restartedTime);
+        CycleSnapshot snapshot = CycleSnapshot.read(file);
+        restored.resume(snapshot.toPlan(), snapshot.anchorForBoot(0));
+
+        assertEquals(original.getPhase(), restored.getPhase());
+        assertEquals(CycleEngine.Phase.BREAK, restored.getPhase());
+        assertEquals(original.getPhaseEndElapsed(), restored.getPhaseEndElapsed());
+        assertEquals(original.getSessionAnchorElapsed(), restored.getSessionAnchorElapsed());
+    }
+
+    @Test
+    public void pausedSessionResumesWithTheWorkTimeLeft() throws IOException {
+        File file = tempFolder.newFile();
+        VirtualClock time = new VirtualClock(5_000_000L);
+        CycleEngine original = newEngine(time);
+        original.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.advanceBy(22 * MINUTE + 15 * MINUTE); // 15 minutes into the second work phase
+        original.pause();
+        CycleSnapshot.of(original, 0).write(file);
+
+        // Process dies while the screen is off; the service is restarted an hour later
+        long restartAt = time.elapsedRealtime() + 60 * MINUTE;
+        VirtualClock restartedTime = new VirtualClock(restartAt);
+        CycleEngine restored = newEngine(restartedTime);
+        CycleSnapshot snapshot = CycleSnapshot.read(file);
+        assertEquals(CycleEngine.Phase.PAUSED, snapshot.phase);
+        restored.resume(snapshot.toPlan(), snapshot.anchorForResume(0, restartAt));
+
+        assertEquals(CycleEngine.Phase.WORK, restored.getPhase());
+        assertEquals(restartAt + 5 * MINUTE, restored.getPhaseEndElapsed());
+    }
+
+    @Test
+    public void anchorIsCarriedAcrossReboot() {
+        long bootWall = 1_700_000_000_000L;
+        CycleSnapshot snapshot = new CycleSnapshot(CycleEngine.Phase.WORK, MINUTE, 0, MINUTE, 0, 50_000L, bootWall);
+
+        assertEquals(50_000L, snapshot.anchorForBoot(bootWall + 500)); // Same boot, small wall-clock adjustment
+        long rebootWall = bootWall + 3_600_000L;
+        assertEquals(50_000L - 3_600_000L, snapshot.anchorForBoot(rebootWall));
+    }
+
+    @Test
+    public void restoreIsFast() throws IOException {
+        File file = tempFolder.newFile();
+        new CycleSnapshot(CycleEngine.Phase.BREAK, 20 * MINUTE, 10 * SECOND, 2 * MINUTE, 0, 0, 0).write(file);
+        VirtualClock time = new VirtualClock(10 * 60 * MINUTE);
+        CycleEngine engine = newEngine(time);
+
+        int runs = 2_000;
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            CycleSnapshot snapshot = CycleSnapshot.read(file);
+            engine.resume(snapshot.toPlan(), snapshot.anchorForBoot(0));
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+
+        long medianMicros = nanos[runs / 2] / 1000;
+        // One small file read, a decode and a resume; the bound is generous so slow CI machines pass
+        assertTrue("Median restore took " + medianMicros + "us", medianMicros < 2_000);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.eye;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link FeedbackDispatcher} with a fake vibrator sink on a {@link VirtualClock}.
+ */
+public class FeedbackDispatcherTest {
+
+    private static final long SECOND = 1000L;
+
+    private final HapticLibrary library = new HapticLibrary();
+    private VirtualClock time;
+    private FeedbackDispatcher dispatcher;
+    private final List<String> sinkCalls = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        time = new VirtualClock(1_000_000L);
+        dispatcher = new FeedbackDispatcher(time, time, new FeedbackDispatcher.Sink() {
+            @Override
+            public void play(FeedbackDispatcher.Alert alert) {
+                sinkCalls.add("play " + alert.type + " " + alert.durationMillis);
+            }
+
+            @Override
+            public void cancel() {
+                sinkCalls.add("cancel");
+            }
+        });
+        time.setWakeupTarget(dispatcher::onWakeup);
+    }
+
+    /** A single vibration of {@code durationMillis}, or a toast only if it is 0. */
+    private FeedbackDispatcher.Alert breakAlert(long durationMillis) {
+        HapticPattern pattern = durationMillis > 0 ? library.register("break_" + durationMillis, "+" + durationMillis) : null;
+        return new FeedbackDispatcher.Alert(VibrationFeedbackType.CONTINUOUS_AFTER_WORK, pattern, "Break");
+    }
+
+    private FeedbackDispatcher.Alert backToWorkAlert() {
+        HapticPattern pattern = library.register(HapticLibrary.BACK_TO_WORK, HapticLibrary.DEFAULT_BACK_TO_WORK_SOURCE);
+        return new FeedbackDispatcher.Alert(VibrationFeedbackType.INTERVAL_BACK_TO_WORK, pattern, "Back to work");
+    }
+
+    @Test
+    public void playsAlertAndFinishesIt() {
+        dispatcher.submit(breakAlert(20 * SECOND));
+        assertNotNull(dispatcher.getPlaying());
+
+        time.advanceBy(20 * SECOND);
+        assertNull(dispatcher.getPlaying());
+        assertEquals(List.of("play CONTINUOUS_AFTER_WORK 20000"), sinkCalls);
+    }
+
+    @Test
+    public void duplicatesWithinWindowCollapse() {
+        dispatcher.submit(breakAlert(20 * SECOND));
+        time.advanceBy(500);
+        dispatcher.submit(breakAlert(20 * SECOND));
+        dispatcher.submit(breakAlert(20 * SECOND));
+
+        assertEquals(1, dispatcher.getPlayedCount());
+        assertEquals(2, dispatcher.getCollapsedCount());
+        assertEquals(0, dispatcher.getQueuedCount());
+    }
+
+    @Test
+    public void backToWorkPreemptsLongBreakVibration() {
+        // Catch-up after Doze: the break start and its end are delivered back to back
+        dispatcher.submit(breakAlert(60 * SECOND));
+        time.advanceBy(100);
+        dispatcher.submit(backToWorkAlert());
+
+        assertEquals(VibrationFeedbackType.INTERVAL_BACK_TO_WORK, dispatcher.getPlaying().type);
+        assertEquals(List.of("play CONTINUOUS_AFTER_WORK 60000", "cancel", "play INTERVAL_BACK_TO_WORK 4500"), sinkCalls);
+        assertEquals(1, dispatcher.getPreemptedCount());
+
+        time.advanceBy(4500);
+        assertNull(dispatcher.getPlaying()); // The preempted alert is not resumed
+    }
+
+    @Test
+    public void lowerPriorityWaitsForRunningAlert() {
+        dispatcher.submit(backToWorkAlert());
+        time.advanceBy(SECOND);
+        dispatcher.submit(breakAlert(10 * SECOND));
+
+        assertEquals(1, dispatcher.getQueuedCount());
+        assertEquals(VibrationFeedbackType.INTERVAL_BACK_TO_WORK, dispatcher.getPlaying().type);
+
+        time.advanceBy(3500); // Back-to-work pattern ends
+        assertEquals(VibrationFeedbackType.CONTINUOUS_AFTER_WORK, dispatcher.getPlaying().type);
+        assertEquals(0, dispatcher.getQueuedCount());
+        assertFalse(sinkCalls.contains("cancel"));
+    }
+
+    @Test
+    public void queueIsBounded() {
+        dispatcher.submit(backToWorkAlert());
+        for (int i = 0; i < FeedbackDispatcher.MAX_QUEUED + 3; i++) {
+            time.advanceBy(FeedbackDispatcher.DEDUP_WINDOW_MILLIS); // Past the dedup window, still while playing
+            time.cancelWakeup();
+            dispatcher.submit(breakAlert(SECOND));
+        }
+
+        assertEquals(FeedbackDispatcher.MAX_QUEUED, dispatcher.getQueuedCount());
+        assertEquals(3, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void cancelStopsRunningAndQueuedAlerts() {
+        dispatcher.submit(backToWorkAlert());
+        time.advanceBy(SECOND);
+        dispatcher.submit(breakAlert(10 * SECOND));
+        dispatcher.cancel();
+
+        assertNull(dispatcher.getPlaying());
+        assertEquals(0, dispatcher.getQueuedCount());
+        assertFalse(time.hasPendingWakeup());
+        assertEquals("cancel", sinkCalls.get(sinkCalls.size() - 1));
+
+        dispatcher.cancel(); // Idle cancel does not touch the sink again
+        assertEquals(2, sinkCalls.size());
+    }
+
+    @Test
+    public void toastOnlyAlertFinishesImmediately() {
+        dispatcher.submit(breakAlert(0));
+        time.advanceBy(0);
+        assertNull(dispatcher.getPlaying());
+    }
+}
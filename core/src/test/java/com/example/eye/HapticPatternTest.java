@@ -0,0 +1,204 @@
+package com.example.eye;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link HapticPattern} parsing, compilation and the legacy fallback, plus a fuzz
+ * test over random pattern text, and for {@link HapticLibrary}.
+ */
+public class HapticPatternTest {
+
+    @Test
+    public void backToWorkPatternIsFivePulses() {
+        HapticPattern pattern = HapticPattern.parse(HapticLibrary.DEFAULT_BACK_TO_WORK_SOURCE);
+        assertArrayEquals(new long[]{500, 500, 500, 500, 500, 500, 500, 500, 500}, pattern.getTimings());
+        assertEquals(HapticPattern.DEFAULT_AMPLITUDE, pattern.getAmplitudes()[0]);
+        assertEquals(0, pattern.getAmplitudes()[1]);
+        assertArrayEquals(new long[]{0, 500, 500, 500, 500, 500, 500, 500, 500, 500}, pattern.getLegacyTimings());
+        assertEquals(4_500, pattern.getTotalMillis());
+    }
+
+    @Test
+    public void parsesAmplitudesSeparatorsAndNestedGroups() {
+        HapticPattern pattern = HapticPattern.parse("-100, ((+50@10 -50)*2 +200@255)*2");
+        assertArrayEquals(new long[]{100, 50, 50, 50, 50, 200, 50, 50, 50, 50, 200}, pattern.getTimings());
+        assertArrayEquals(new int[]{0, 10, 0, 10, 0, 255, 10, 0, 10, 0, 255}, pattern.getAmplitudes());
+        assertEquals(900, pattern.getTotalMillis());
+    }
+
+    @Test
+    public void mergesAdjacentEqualSegments() {
+        HapticPattern pattern = HapticPattern.parse("+100 +200 -50 (-50)*3 +100@9");
+        assertArrayEquals(new long[]{300, 200, 100}, pattern.getTimings());
+        assertArrayEquals(new int[]{HapticPattern.DEFAULT_AMPLITUDE, 0, 9}, pattern.getAmplitudes());
+    }
+
+    @Test
+    public void legacyFallbackPlaysStrongSegmentsSolidAndWeakOnesAsPulses() {
+        // 255 is solid; 128 over 100ms becomes two 50ms periods of 25ms on / 25ms off
+        HapticPattern pattern = HapticPattern.parse("+100@255 +100@128 -100");
+        assertArrayEquals(new long[]{0, 125, 25, 25, 125}, pattern.getLegacyTimings());
+        // Very weak segments still get pulses long enough to be felt
+        assertArrayEquals(new long[]{0, 10, 40}, HapticPattern.parse("+50@1").getLegacyTimings());
+        // The pattern starts with a pause: no zero-length first entry needed
+        assertArrayEquals(new long[]{200, 300}, HapticPattern.parse("-200 +300").getLegacyTimings());
+    }
+
+    @Test
+    public void oneShotNeedsNoParsing() {
+        HapticPattern pattern = HapticPattern.oneShot(20_000);
+        assertArrayEquals(new long[]{20_000}, pattern.getTimings());
+        assertArrayEquals(new long[]{0, 20_000}, pattern.getLegacyTimings());
+        assertEquals("+20000", pattern.getSource());
+    }
+
+    @Test
+    public void rejectsInvalidPatterns() {
+        assertInvalid("Vibration pattern is empty", "  ");
+        assertInvalid("Vibration pattern is empty", "()*2");
+        assertInvalid("Invalid vibration pattern at 1: Expected '+', '-' or '('", "500");
+        assertInvalid("Invalid vibration pattern at 2: Duration expected", "+@100");
+        assertInvalid("Invalid vibration pattern at 2: Duration must be at least 1", "+0");
+        assertInvalid("Invalid vibration pattern at 5: Amplitude must be at most 255", "+10@256");
+        assertInvalid("Invalid vibration pattern at 4: A pause has no amplitude", "-10@5");
+        assertInvalid("Invalid vibration pattern at 5: Missing ')'", "(+10");
+        assertInvalid("Invalid vibration pattern at 6: Expected '*' and a repeat count after ')'", "(+10)");
+        assertInvalid("Invalid vibration pattern at 4: Unexpected ')'", "+10)");
+        assertInvalid("Invalid vibration pattern at 7: Repeat count must be at most 100", "(+10)*101");
+        assertInvalid("Invalid vibration pattern at 5: Groups nested too deep", "(((((+10)*2)*2)*2)*2)*2");
+        assertInvalid("Invalid vibration pattern at 18: Pattern is longer than 300s", "(+60000 -60000)*3");
+        assertInvalid("Invalid vibration pattern at 16: Pattern has more than 512 segments", "((+1 -1)*100)*3");
+    }
+
+    @Test
+    public void fuzzedTextEitherCompilesConsistentlyOrFailsWithAMessage() {
+        Random random = new Random(16);
+        String alphabet = "+-@()*, 0123456789x";
+        int parsed = 0;
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = 1 + random.nextInt(24);
+            for (int c = 0; c < length; c++) text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            HapticPattern pattern;
+            try {
+                pattern = HapticPattern.parse(text.toString());
+            } catch (IllegalArgumentException e) {
+                assertNotNull(e.getMessage());
+                continue;
+            }
+            parsed++;
+            assertConsistent(text.toString(), pattern);
+        }
+        assertTrue("Fuzzer should hit valid patterns too, got " + parsed, parsed > 100);
+    }
+
+    @Test
+    public void fuzzedValidPatternsMatchTheirExpandedLength() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            StringBuilder text = new StringBuilder();
+            long expected = appendRandomItems(random, text, 0);
+            HapticPattern pattern = HapticPattern.parse(text.toString());
+            assertEquals(text.toString(), expected, pattern.getTotalMillis());
+            assertConsistent(text.toString(), pattern);
+        }
+    }
+
+    @Test
+    public void libraryCachesCompiledPatternsById() {
+        HapticLibrary library = new HapticLibrary();
+        HapticPattern first = library.register(HapticLibrary.BACK_TO_WORK, "+100 -100 +100");
+        assertSame(first, library.register(HapticLibrary.BACK_TO_WORK, "+100 -100 +100"));
+        assertSame(first, library.get(HapticLibrary.BACK_TO_WORK));
+        try {
+            library.register(HapticLibrary.BACK_TO_WORK, "+");
+            fail("Expected an invalid pattern");
+        } catch (IllegalArgumentException expected) {
+            assertSame(first, library.get(HapticLibrary.BACK_TO_WORK)); // A bad edit keeps the old pattern
+        }
+        assertNotSame(first, library.register(HapticLibrary.BACK_TO_WORK, "+200"));
+        assertNull(library.get("unknown"));
+    }
+
+    @Test
+    public void breakStartsArePrecompiledPerDistinctLength() {
+        HapticLibrary library = new HapticLibrary();
+        SchedulePlan pomodoro = SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 6 * 60_000, 0);
+        // 5m breaks cut the 6m vibration, the 20m long break plays it whole
+        HapticPattern[] compiled = library.registerBreakStarts(pomodoro);
+        assertEquals(2, compiled.length);
+        HapticPattern shortBreak = library.getBreakStart(5 * 60_000);
+        assertNotNull(shortBreak);
+        assertNotNull(library.getBreakStart(6 * 60_000));
+        assertNull(library.getBreakStart(20 * 60_000));
+
+        // Applying settings again keeps what is already compiled
+        assertEquals(0, library.registerBreakStarts(pomodoro).length);
+        assertSame(shortBreak, library.getBreakStart(5 * 60_000));
+
+        library.registerBreakStarts(SchedulePlan.of(SchedulePlan.Preset.CUSTOM, 60_000, 10_000, 60_000));
+        assertNull(library.getBreakStart(5 * 60_000));
+        assertEquals(10_000, library.getBreakStart(10_000).getTotalMillis());
+    }
+
+    /** Appends 1..3 random items (segments or groups) and returns their expanded length. */
+    private static long appendRandomItems(Random random, StringBuilder text, int depth) {
+        long total = 0;
+        int items = 1 + random.nextInt(3);
+        for (int i = 0; i < items; i++) {
+            if (text.length() > 0) text.append(random.nextBoolean() ? ' ' : ',');
+            if (depth < 2 && random.nextInt(4) == 0) {
+                text.append('(');
+                long group = appendRandomItems(random, text, depth + 1);
+                int repeat = 1 + random.nextInt(3);
+                text.append(")*").append(repeat);
+                total += group * repeat;
+            } else {
+                long millis = 1 + random.nextInt(400);
+                boolean on = random.nextBoolean();
+                text.append(on ? '+' : '-').append(millis);
+                if (on && random.nextBoolean()) text.append('@').append(1 + random.nextInt(255));
+                total += millis;
+            }
+        }
+        return total;
+    }
+
+    private static void assertConsistent(String text, HapticPattern pattern) {
+        long[] timings = pattern.getTimings();
+        int[] amplitudes = pattern.getAmplitudes();
+        assertEquals(text, timings.length, amplitudes.length);
+        assertTrue(text, timings.length > 0 && timings.length <= HapticPattern.MAX_SEGMENTS);
+        long total = 0;
+        for (int i = 0; i < timings.length; i++) {
+            assertTrue(text, timings[i] > 0);
+            assertTrue(text, amplitudes[i] == HapticPattern.DEFAULT_AMPLITUDE
+                    || (amplitudes[i] >= 0 && amplitudes[i] <= HapticPattern.MAX_AMPLITUDE));
+            if (i > 0) assertNotEquals(text, amplitudes[i - 1], amplitudes[i]);
+            total += timings[i];
+        }
+        assertEquals(text, pattern.getTotalMillis(), total);
+        assertTrue(text, total <= HapticPattern.MAX_TOTAL_MILLIS);
+        // Legacy timings: off first, then strictly alternating non-empty runs, same overall length
+        long[] legacy = pattern.getLegacyTimings();
+        long legacyTotal = legacy[0];
+        for (int i = 1; i < legacy.length; i++) {
+            assertTrue(text, legacy[i] > 0);
+            legacyTotal += legacy[i];
+        }
+        assertEquals(text, total, legacyTotal);
+    }
+
+    private static void assertInvalid(String message, String text) {
+        try {
+            HapticPattern.parse(text);
+            fail("Expected " + message);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.eye;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, histogram.getMean());
+    }
+
+    @Test
+    public void percentileIsBucketUpperBoundCappedByMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) histogram.record(3);
+        histogram.record(1234);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5, histogram.getPercentile(50));   // 3ms falls in the (2, 5] bucket
+        assertEquals(5, histogram.getPercentile(99));
+        assertEquals(1234, histogram.getPercentile(100)); // (1000, 2000] bucket, capped by the max
+        assertEquals(1234, histogram.getMax());
+    }
+
+    @Test
+    public void valuesBeyondLastBucketReportMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(24 * 60 * 60 * 1000L);
+
+        assertEquals(24 * 60 * 60 * 1000L, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void negativeValuesCountAsZeroAndResetClears() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(0, histogram.getMax());
+        assertEquals(1, histogram.getCount());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.eye;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link PhaseNotifier}: the notification is only posted when the phase changes.
+ */
+public class PhaseNotifierTest {
+
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long HOUR = 60 * MINUTE;
+
+    @Test
+    public void identicalUpdatesAreNotPostedAgain() {
+        int[] posts = new int[1];
+        PhaseNotifier notifier = new PhaseNotifier((text, end) -> posts[0]++);
+
+        assertTrue(notifier.update("Status: Working...", 10 * MINUTE));
+        assertFalse(notifier.update("Status: Working...", 10 * MINUTE));
+        assertTrue(notifier.update("Status: Break Time...", 12 * MINUTE));
+        assertEquals(2, posts[0]);
+        assertEquals(2, notifier.getNotifyCount());
+    }
+
+    @Test
+    public void resetForcesNextPost() {
+        PhaseNotifier notifier = new PhaseNotifier((text, end) -> { });
+        notifier.update("Status: Working...", 10 * MINUTE);
+        notifier.reset();
+
+        assertTrue(notifier.update("Status: Working...", 10 * MINUTE));
+    }
+
+    @Test
+    public void postsAFewTimesPerCycleInsteadOfEverySecond() {
+        VirtualClock time = new VirtualClock(0);
+        PhaseNotifier notifier = new PhaseNotifier((text, end) -> { });
+        CycleEngine engine = new CycleEngine(time, time,
+                (phase, previous, end) -> notifier.update(phase == CycleEngine.Phase.WORK ? "Status: Working..." : "Status: Break Time...", end));
+        time.setWakeupTarget(engine::onWakeup);
+
+        engine.start(20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+        time.advanceTo(8 * HOUR);
+
+        long cycles = 8 * HOUR / (22 * MINUTE) + 1;
+        assertTrue(notifier.getNotifyCount() <= 3 * cycles);
+        assertTrue(notifier.getNotifyCount() < 8 * HOUR / SECOND / 100);
+    }
+}
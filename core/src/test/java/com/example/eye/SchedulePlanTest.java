@@ -0,0 +1,119 @@
+package com.example.eye;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link SchedulePlan} timelines and running them in a {@link CycleEngine}.
+ */
+public class SchedulePlanTest {
+
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+
+    private VirtualClock time;
+    private CycleEngine engine;
+    private final List<CycleEngine.Phase> phases = new ArrayList<>();
+    private final List<Long> phaseEnds = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        time = new VirtualClock(1_000_000L);
+        engine = new CycleEngine(time, time, (phase, previous, end) -> {
+            phases.add(phase);
+            phaseEnds.add(end);
+        });
+        time.setWakeupTarget(engine::onWakeup);
+    }
+
+    @Test
+    public void customPlanMatchesSingleCycle() {
+        SchedulePlan plan = SchedulePlan.of(SchedulePlan.Preset.CUSTOM, 20 * MINUTE, 10 * SECOND, 2 * MINUTE);
+
+        assertEquals(3, plan.getSegmentCount());
+        assertEquals(22 * MINUTE, plan.getPeriodMillis());
+        assertEquals(CycleEngine.Phase.WORK, plan.getPhase(plan.segmentAt(0)));
+        assertEquals(CycleEngine.Phase.WORK, plan.getPhase(plan.segmentAt(20 * MINUTE - 1)));
+        assertEquals(CycleEngine.Phase.BREAK_VIBRATING, plan.getPhase(plan.segmentAt(20 * MINUTE)));
+        assertEquals(CycleEngine.Phase.BREAK, plan.getPhase(plan.segmentAt(20 * MINUTE + 10 * SECOND)));
+        assertEquals(CycleEngine.Phase.BREAK, plan.getPhase(plan.segmentAt(22 * MINUTE - 1)));
+    }
+
+    @Test
+    public void pomodoroHasLongBreakEveryFourthCycle() {
+        SchedulePlan plan = SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 10 * SECOND, 0);
+        assertEquals(3 * 30 * MINUTE + 45 * MINUTE, plan.getPeriodMillis());
+
+        engine.start(plan);
+        long start = time.elapsedRealtime();
+        time.advanceTo(start + 2 * plan.getPeriodMillis());
+
+        // Work, vibration, break for each of 8 pomodoros, plus the work phase of the next period
+        assertEquals(3 * 8 + 1, phases.size());
+        int longBreaks = 0;
+        for (int i = 2; i < phases.size(); i += 3) {
+            assertEquals(CycleEngine.Phase.BREAK, phases.get(i));
+            long breakLength = phaseEnds.get(i) - phaseEnds.get(i - 2);
+            if (breakLength == 20 * MINUTE) longBreaks++;
+            else assertEquals(5 * MINUTE, breakLength);
+        }
+        assertEquals(2, longBreaks);
+        assertEquals(start + 2 * plan.getPeriodMillis() + 25 * MINUTE, engine.getPhaseEndElapsed());
+    }
+
+    @Test
+    public void eyeRestBreakIsShorterThanVibration() {
+        SchedulePlan plan = SchedulePlan.of(SchedulePlan.Preset.EYE_REST, 0, BlinkerConfig.DEFAULT_VIBRATION_TIME_SEC * SECOND, 0);
+
+        // The 20s break is no longer than the vibration, so it has no separate vibration segment
+        assertEquals(2, plan.getSegmentCount());
+        assertEquals(CycleEngine.Phase.BREAK, plan.getPhase(1));
+        assertEquals(20 * SECOND, plan.getPairBreakMillis(0));
+    }
+
+    @Test
+    public void resumeLooksUpPhaseInTimeline() {
+        SchedulePlan plan = SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 10 * SECOND, 0);
+        long anchor = time.elapsedRealtime();
+        // Five periods later, two minutes into the long break
+        time.advanceBy(5 * plan.getPeriodMillis() + 3 * 30 * MINUTE + 27 * MINUTE);
+        engine.resume(plan, anchor);
+
+        assertEquals(CycleEngine.Phase.BREAK, engine.getPhase());
+        assertEquals(20 * MINUTE, engine.getCurrentBreakMillis());
+        assertEquals(anchor + 6 * plan.getPeriodMillis(), engine.getPhaseEndElapsed());
+    }
+
+    @Test
+    public void segmentLookupAgreesWithLinearScan() {
+        SchedulePlan plan = SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 30 * SECOND, 0);
+        for (long offset = 0; offset < plan.getPeriodMillis(); offset += 997) {
+            int expected = 0;
+            while (plan.getSegmentEnd(expected) <= offset) expected++;
+            assertEquals("offset " + offset, expected, plan.segmentAt(offset));
+            assertTrue(plan.getSegmentStart(expected) <= offset);
+        }
+    }
+
+    @Test
+    public void alertingBoundariesSkipTheEndOfTheVibration() {
+        SchedulePlan plan = SchedulePlan.of(SchedulePlan.Preset.POMODORO, 0, 10 * SECOND, 0);
+        assertEquals(8, plan.getAlertingBoundariesPerPeriod());
+        // Pair 0: WORK, BREAK_VIBRATING, BREAK; pair 1 starts at segment 3
+        assertEquals(1, plan.getAlertingBoundariesThrough(0));
+        assertEquals(2, plan.getAlertingBoundariesThrough(1));
+        assertEquals(2, plan.getAlertingBoundariesThrough(2));
+        assertEquals(3, plan.getAlertingBoundariesThrough(3));
+        assertEquals(8, plan.getAlertingBoundariesThrough(plan.getSegmentCount() - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveDurations() {
+        SchedulePlan.of(SchedulePlan.Preset.CUSTOM, 0, 10 * SECOND, MINUTE);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.eye;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link ServiceMetrics} and the lock-free {@link LatencyHistogram} behind it.
+ */
+public class ServiceMetricsTest {
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void recordHotPath(ServiceMetrics metrics, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            metrics.wakeups.incrementAndGet();
+            metrics.wakeupLatenessMillis.record(i % 3000);
+            metrics.notificationPosts.incrementAndGet();
+            metrics.notificationMicros.record(i % 700);
+            metrics.vibrationsFired.incrementAndGet();
+            metrics.vibrationMicros.record(i);
+        }
+    }
+
+    @Test
+    public void recordingDoesNotAllocate() {
+        ServiceMetrics metrics = new ServiceMetrics(new LatencyHistogram());
+        // Warm up so the JIT has compiled the path; several rounds, as earlier tests (the pattern
+        // fuzzers) can keep the compiler busy when this one starts
+        for (int round = 0; round < 5; round++) recordHotPath(metrics, 200_000);
+
+        // What reading the allocation counter itself costs
+        long baselineStart = allocatedBytes();
+        long baseline = allocatedBytes() - baselineStart;
+
+        long start = allocatedBytes();
+        recordHotPath(metrics, 1_000_000);
+        long allocated = allocatedBytes() - start - baseline;
+
+        assertTrue("Recording allocated " + allocated + " bytes", allocated <= 0);
+        assertEquals(2_000_000, metrics.wakeups.get());
+    }
+
+    @Test
+    public void concurrentRecordingLosesNothing() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long offset = t * 100_000L;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) histogram.record(offset + i);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(399_999, histogram.getMax());
+        assertEquals(199_999, histogram.getMean());
+    }
+
+    @Test
+    public void dumpListsEveryMetric() {
+        ServiceMetrics metrics = new ServiceMetrics(new LatencyHistogram());
+        metrics.wakeups.incrementAndGet();
+        metrics.notificationMicros.record(250);
+        metrics.vibrationMicros.record(900);
+
+        StringWriter out = new StringWriter();
+        metrics.dump(new PrintWriter(out, true));
+        String report = out.toString();
+
+        assertTrue(report.contains("wakeups: 1"));
+        assertTrue(report.contains("notification posts: 0"));
+        assertTrue(report.contains("vibrations fired: 0"));
+        assertTrue(report.contains("updateNotification: count=1 mean=250us"));
+        assertTrue(report.contains("VibratorFeedbackSink.play: count=1 mean=900us"));
+        assertTrue(report.contains("wakeup lateness: count=0"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.eye;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link SessionJournal} and {@link SessionJournalReader}.
+ */
+public class SessionJournalTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    /** Runs I/O tasks only when asked to, so tests can see what reached the disk. */
+    private static final class QueuedExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override public void execute(Runnable command) { tasks.add(command); }
+
+        void runAll() {
+            for (Runnable task : tasks) task.run();
+            tasks.clear();
+        }
+    }
+
+    @Test
+    public void recordsAreWrittenInBatches() throws IOException {
+        File file = tempFolder.newFile();
+        QueuedExecutor io = new QueuedExecutor();
+        SessionJournal journal = new SessionJournal(file, io, 4);
+
+        for (int i = 0; i < 3; i++) journal.append(SessionJournal.Event.WORK_START, i, i);
+        assertTrue(io.tasks.isEmpty()); // Batch not full yet
+
+        journal.append(SessionJournal.Event.BREAK_START, 3, 3);
+        assertEquals(1, io.tasks.size());
+        io.runAll();
+        assertEquals(4 * SessionJournal.RECORD_SIZE, file.length());
+
+        journal.append(SessionJournal.Event.SERVICE_STOP, 4, 0);
+        journal.close();
+        io.runAll();
+        assertEquals(5 * SessionJournal.RECORD_SIZE, file.length());
+    }
+
+    @Test
+    public void readerReturnsRecordsInOrder() throws IOException {
+        File file = tempFolder.newFile();
+        SessionJournal journal = new SessionJournal(file, Runnable::run, 2);
+        journal.append(SessionJournal.Event.WORK_START, 1000L, 1_200_000);
+        journal.append(SessionJournal.Event.VIBRATION_FIRED, 2000L, VibrationFeedbackType.CONTINUOUS_AFTER_WORK.ordinal());
+        journal.append(SessionJournal.Event.BREAK_START, 2000L, 120_000);
+        journal.close();
+
+        try (SessionJournalReader reader = new SessionJournalReader(file)) {
+            assertTrue(reader.next());
+            assertEquals(SessionJournal.Event.WORK_START, reader.getEvent());
+            assertEquals(1000L, reader.getTimestampMillis());
+            assertEquals(1_200_000, reader.getValue());
+            assertTrue(reader.next());
+            assertEquals(SessionJournal.Event.VIBRATION_FIRED, reader.getEvent());
+            assertTrue(reader.next());
+            assertEquals(SessionJournal.Event.BREAK_START, reader.getEvent());
+            assertEquals(120_000, reader.getValue());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void tornRecordIsSkippedAndCutOffOnReopen() throws IOException {
+        File file = tempFolder.newFile();
+        SessionJournal journal = new SessionJournal(file, Runnable::run, 1);
+        journal.append(SessionJournal.Event.WORK_START, 1L, 1);
+        journal.close();
+        // Simulate a crash half way through writing the next record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length());
+            raf.write(new byte[7]);
+        }
+
+        try (SessionJournalReader reader = new SessionJournalReader(file)) {
+            assertTrue(reader.next());
+            assertFalse(reader.next());
+        }
+
+        SessionJournal reopened = new SessionJournal(file, Runnable::run, 1);
+        reopened.append(SessionJournal.Event.SERVICE_STOP, 2L, 0);
+        reopened.close();
+        assertEquals(2 * SessionJournal.RECORD_SIZE, file.length());
+        try (SessionJournalReader reader = new SessionJournalReader(file)) {
+            assertTrue(reader.next());
+            assertTrue(reader.next());
+            assertEquals(SessionJournal.Event.SERVICE_STOP, reader.getEvent());
+            assertEquals(2L, reader.getTimestampMillis());
+        }
+    }
+
+    @Test
+    public void streamsTenMillionRecords() throws IOException {
+        File file = tempFolder.newFile();
+        int records = 10_000_000;
+        SessionJournal journal = new SessionJournal(file, Runnable::run, 8192);
+        SessionJournal.Event[] events = SessionJournal.Event.values();
+        for (int i = 0; i < records; i++) {
+            journal.append(events[i % events.length], i, i);
+        }
+        journal.close();
+        assertEquals((long) records * SessionJournal.RECORD_SIZE, file.length());
+
+        long count = 0;
+        try (SessionJournalReader reader = new SessionJournalReader(file)) {
+            while (reader.next()) {
+                if (reader.getTimestampMillis() != count || reader.getValue() != (int) count
+                        || reader.getEvent() != events[(int) (count % events.length)]) {
+                    fail("Unexpected record at index " + count);
+                }
+                count++;
+            }
+        }
+        assertEquals(records, count);
+    }
+}
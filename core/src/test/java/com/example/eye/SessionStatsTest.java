@@ -0,0 +1,227 @@
+package com.example.eye;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link SessionStats}.
+ */
+public class SessionStatsTest {
+
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    private static final int ZONE_OFFSET = (int) (5.5 * HOUR); // Something that is not UTC
+
+    // 2024-01-01 00:00 local time, a Monday
+    private static final long MONDAY = 19723 * DAY - ZONE_OFFSET;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void completedCycleIsCounted() {
+        SessionStats stats = new SessionStats(ZONE_OFFSET);
+        long t = MONDAY + 9 * HOUR;
+        stats.accept(SessionJournal.Event.WORK_START, t, 0);
+        stats.accept(SessionJournal.Event.BREAK_START, t + 20 * MINUTE, 0);
+        stats.accept(SessionJournal.Event.BREAK_END, t + 22 * MINUTE, 0);
+        stats.accept(SessionJournal.Event.WORK_START, t + 22 * MINUTE, 0);
+        stats.accept(SessionJournal.Event.SERVICE_STOP, t + 30 * MINUTE, 0);
+
+        int day = stats.dayIndex(t);
+        assertEquals(28 * MINUTE, stats.getDayWorkMillis(day));
+        assertEquals(1, stats.getDayBreaksCompleted(day));
+        assertEquals(0, stats.getDayBreaksInterrupted(day));
+        assertEquals(1, stats.getDayLongestStreak(day));
+        assertEquals(28 * MINUTE, stats.getWeekWorkMillis(SessionStats.weekIndex(day)));
+    }
+
+    @Test
+    public void stopDuringBreakInterruptsItAndResetsStreak() {
+        SessionStats stats = new SessionStats(ZONE_OFFSET);
+        long t = MONDAY + 9 * HOUR;
+        for (int i = 0; i < 3; i++) {
+            stats.accept(SessionJournal.Event.WORK_START, t, 0);
+            stats.accept(SessionJournal.Event.BREAK_START, t + 20 * MINUTE, 0);
+            stats.accept(SessionJournal.Event.BREAK_END, t + 22 * MINUTE, 0);
+            t += 22 * MINUTE;
+        }
+        stats.accept(SessionJournal.Event.WORK_START, t, 0);
+        stats.accept(SessionJournal.Event.BREAK_START, t + 20 * MINUTE, 0);
+        stats.accept(SessionJournal.Event.SERVICE_STOP, t + 21 * MINUTE, 0);
+        stats.accept(SessionJournal.Event.WORK_START, t + HOUR, 0);
+        stats.accept(SessionJournal.Event.BREAK_START, t + HOUR + 20 * MINUTE, 0);
+        stats.accept(SessionJournal.Event.BREAK_END, t + HOUR + 22 * MINUTE, 0);
+
+        int day = stats.dayIndex(t);
+        assertEquals(4, stats.getDayBreaksCompleted(day));
+        assertEquals(1, stats.getDayBreaksInterrupted(day));
+        assertEquals(3, stats.getDayLongestStreak(day));
+    }
+
+    @Test
+    public void pausedTimeIsNotWorkTime() {
+        SessionStats stats = new SessionStats(ZONE_OFFSET);
+        long t = MONDAY + 9 * HOUR;
+        stats.accept(SessionJournal.Event.WORK_START, t, 0);
+        stats.accept(SessionJournal.Event.WORK_PAUSE, t + 5 * MINUTE, 0);
+        stats.accept(SessionJournal.Event.WORK_RESUME, t + 45 * MINUTE, 1);
+        stats.accept(SessionJournal.Event.BREAK_START, t + 65 * MINUTE, 0);
+
+        assertEquals(25 * MINUTE, stats.getDayWorkMillis(stats.dayIndex(t)));
+    }
+
+    @Test
+    public void workAcrossMidnightIsSplitBetweenDays() {
+        SessionStats stats = new SessionStats(ZONE_OFFSET);
+        long midnight = MONDAY + DAY;
+        stats.accept(SessionJournal.Event.WORK_START, midnight - 10 * MINUTE, 0);
+        stats.accept(SessionJournal.Event.BREAK_START, midnight + 10 * MINUTE, 0);
+
+        assertEquals(10 * MINUTE, stats.getDayWorkMillis(stats.dayIndex(midnight - 1)));
+        assertEquals(10 * MINUTE, stats.getDayWorkMillis(stats.dayIndex(midnight)));
+    }
+
+    @Test
+    public void weeksStartOnMonday() {
+        SessionStats stats = new SessionStats(ZONE_OFFSET);
+        int monday = stats.dayIndex(MONDAY);
+        assertEquals(SessionStats.weekIndex(monday), SessionStats.weekIndex(monday + 6));
+        assertEquals(SessionStats.weekIndex(monday) - 1, SessionStats.weekIndex(monday - 1));
+    }
+
+    @Test
+    public void oldDaysAreEvictedFromTheRing() {
+        SessionStats stats = new SessionStats(ZONE_OFFSET);
+        long t = MONDAY + 9 * HOUR;
+        stats.accept(SessionJournal.Event.WORK_START, t, 0);
+        stats.accept(SessionJournal.Event.BREAK_START, t + HOUR, 0);
+        long later = t + SessionStats.DAY_SLOTS * DAY;
+        stats.accept(SessionJournal.Event.WORK_START, later, 0);
+        stats.accept(SessionJournal.Event.BREAK_START, later + 2 * HOUR, 0);
+
+        assertEquals(0, stats.getDayWorkMillis(stats.dayIndex(t)));
+        assertEquals(2 * HOUR, stats.getDayWorkMillis(stats.dayIndex(later)));
+    }
+
+    @Test
+    public void incrementalAndRebuiltResultsMatch() throws IOException {
+        File journalFile = tempFolder.newFile();
+        SessionJournal journal = new SessionJournal(journalFile, Runnable::run, 64);
+        SessionStats incremental = new SessionStats(ZONE_OFFSET);
+        Random random = new Random(7);
+
+        // Ninety days of sessions with random lengths, stops in the middle of breaks and restarts
+        long t = MONDAY;
+        for (int d = 0; d < 90; d++) {
+            t = MONDAY + d * DAY + 8 * HOUR + random.nextInt(4 * 60) * MINUTE;
+            int cycles = random.nextInt(30);
+            for (int c = 0; c < cycles; c++) {
+                t = emit(journal, incremental, SessionJournal.Event.WORK_START, t, 20 * MINUTE + random.nextInt(60) * MINUTE);
+                t = emit(journal, incremental, SessionJournal.Event.BREAK_START, t, 0);
+                t = emit(journal, incremental, SessionJournal.Event.VIBRATION_FIRED, t, random.nextInt(5) * MINUTE);
+                if (random.nextInt(10) == 0) {
+                    t = emit(journal, incremental, SessionJournal.Event.SERVICE_STOP, t, random.nextInt(5) * HOUR);
+                } else {
+                    t = emit(journal, incremental, SessionJournal.Event.BREAK_END, t, 0);
+                }
+            }
+            emit(journal, incremental, SessionJournal.Event.SERVICE_STOP, t, 0);
+        }
+        journal.close();
+
+        SessionStats rebuilt = SessionStats.rebuild(journalFile, ZONE_OFFSET);
+        File statsFile = new File(tempFolder.getRoot(), "stats");
+        incremental.save(statsFile);
+        SessionStats loaded = SessionStats.load(statsFile, journalFile, ZONE_OFFSET);
+
+        int lastDay = incremental.dayIndex(t);
+        int checkedBreaks = 0;
+        for (int day = lastDay - SessionStats.DAY_SLOTS + 1; day <= lastDay; day++) {
+            for (SessionStats other : new SessionStats[]{rebuilt, loaded}) {
+                assertEquals(incremental.getDayWorkMillis(day), other.getDayWorkMillis(day));
+                assertEquals(incremental.getDayBreaksCompleted(day), other.getDayBreaksCompleted(day));
+                assertEquals(incremental.getDayBreaksInterrupted(day), other.getDayBreaksInterrupted(day));
+                assertEquals(incremental.getDayLongestStreak(day), other.getDayLongestStreak(day));
+                int week = SessionStats.weekIndex(day);
+                assertEquals(incremental.getWeekWorkMillis(week), other.getWeekWorkMillis(week));
+                assertEquals(incremental.getWeekBreaksCompleted(week), other.getWeekBreaksCompleted(week));
+                assertEquals(incremental.getWeekBreaksInterrupted(week), other.getWeekBreaksInterrupted(week));
+                assertEquals(incremental.getWeekLongestStreak(week), other.getWeekLongestStreak(week));
+            }
+            checkedBreaks += incremental.getDayBreaksCompleted(day);
+        }
+        assertTrue(checkedBreaks > 0);
+    }
+
+    @Test
+    public void snapshotForAnotherZoneFallsBackToRebuild() throws IOException {
+        File journalFile = tempFolder.newFile();
+        SessionJournal journal = new SessionJournal(journalFile, Runnable::run, 1);
+        journal.append(SessionJournal.Event.WORK_START, MONDAY + 12 * HOUR, 0);
+        journal.append(SessionJournal.Event.BREAK_START, MONDAY + 13 * HOUR, 0);
+        journal.close();
+        File statsFile = new File(tempFolder.getRoot(), "stats");
+        new SessionStats(0).save(statsFile); // Empty snapshot written in UTC
+
+        SessionStats stats = SessionStats.load(statsFile, journalFile, ZONE_OFFSET);
+        assertEquals(HOUR, stats.getDayWorkMillis(stats.dayIndex(MONDAY + 12 * HOUR)));
+    }
+
+    @Test
+    public void loadReplaysTheJournalWrittenAfterTheSnapshot() throws IOException {
+        File journalFile = tempFolder.newFile();
+        SessionJournal journal = new SessionJournal(journalFile, Runnable::run, 1);
+        SessionStats stats = new SessionStats(ZONE_OFFSET);
+        long t = MONDAY + 9 * HOUR;
+        t = emit(journal, stats, SessionJournal.Event.WORK_START, t, 20 * MINUTE);
+        t = emit(journal, stats, SessionJournal.Event.BREAK_START, t, 2 * MINUTE);
+        t = emit(journal, stats, SessionJournal.Event.BREAK_END, t, 0);
+        File statsFile = new File(tempFolder.getRoot(), "stats");
+        stats.save(statsFile);
+        // Journaled after the last save, then the process dies
+        t = emit(journal, stats, SessionJournal.Event.WORK_START, t, 20 * MINUTE);
+        t = emit(journal, stats, SessionJournal.Event.BREAK_START, t, 2 * MINUTE);
+        emit(journal, stats, SessionJournal.Event.BREAK_END, t, 0);
+        journal.close();
+
+        SessionStats loaded = SessionStats.load(statsFile, journalFile, ZONE_OFFSET);
+        int day = stats.dayIndex(t);
+        assertEquals(40 * MINUTE, loaded.getDayWorkMillis(day));
+        assertEquals(2, loaded.getDayBreaksCompleted(day));
+        assertEquals(2, loaded.getDayLongestStreak(day));
+
+        // A snapshot ahead of its journal (e.g. the journal was cleared) is not trusted
+        stats.save(statsFile);
+        assertTrue(journalFile.delete());
+        assertEquals(0, SessionStats.load(statsFile, journalFile, ZONE_OFFSET).getDayBreaksCompleted(day));
+    }
+
+    @Test
+    public void breakResumedAfterRestartIsCompleted() {
+        SessionStats stats = new SessionStats(ZONE_OFFSET);
+        long t = MONDAY + 9 * HOUR;
+        stats.accept(SessionJournal.Event.WORK_START, t, 0);
+        // The break's own start was lost with the process; the service journals it again when resuming into it
+        stats.accept(SessionJournal.Event.BREAK_START, t + 21 * MINUTE, 0);
+        stats.accept(SessionJournal.Event.BREAK_END, t + 22 * MINUTE, 0);
+
+        assertEquals(1, stats.getDayBreaksCompleted(stats.dayIndex(t)));
+        assertEquals(0, stats.getDayBreaksInterrupted(stats.dayIndex(t)));
+    }
+
+    /** Writes an event to both the journal and the incremental stats, then advances time. */
+    private static long emit(SessionJournal journal, SessionStats stats, SessionJournal.Event event, long t, long advance) {
+        journal.append(event, t, 0);
+        stats.accept(event, t, 0);
+        return t + advance;
+    }
+}
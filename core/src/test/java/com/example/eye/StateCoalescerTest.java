@@ -0,0 +1,108 @@
+package com.example.eye;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for {@link StateCoalescer}: at most one delivery per frame, none in the background.
+ */
+public class StateCoalescerTest {
+
+    private int frameRequests;
+    private final List<ServiceState> delivered = new ArrayList<>();
+    private StateCoalescer coalescer;
+
+    @Before
+    public void setUp() {
+        coalescer = new StateCoalescer(() -> frameRequests++, delivered::add);
+    }
+
+    private static ServiceState working(long end) {
+        return new ServiceState(true, CycleEngine.Phase.WORK, end);
+    }
+
+    @Test
+    public void burstWithinOneFrameDeliversOnlyTheLatest() {
+        coalescer.setActive(true);
+        for (int i = 1; i <= 100; i++) coalescer.offer(working(i));
+
+        assertEquals(1, frameRequests);
+        coalescer.onFrame();
+        assertEquals(1, delivered.size());
+        assertEquals(working(100), delivered.get(0));
+    }
+
+    @Test
+    public void nothingIsDeliveredOrScheduledWhileInactive() {
+        coalescer.offer(working(1));
+        coalescer.offer(working(2));
+        assertEquals(0, frameRequests);
+
+        coalescer.onFrame(); // A stray frame changes nothing
+        assertTrue(delivered.isEmpty());
+
+        coalescer.setActive(true);
+        assertEquals(1, frameRequests);
+        coalescer.onFrame();
+        assertEquals(working(2), coalescer.getDelivered());
+    }
+
+    @Test
+    public void goingInactiveBeforeTheFrameHoldsTheState() {
+        coalescer.setActive(true);
+        coalescer.offer(working(1));
+        coalescer.setActive(false);
+        coalescer.onFrame();
+        assertTrue(delivered.isEmpty());
+
+        coalescer.setActive(true);
+        coalescer.onFrame();
+        assertEquals(1, delivered.size());
+    }
+
+    @Test
+    public void unchangedStateIsNotDeliveredTwice() {
+        coalescer.setActive(true);
+        coalescer.offer(working(5));
+        coalescer.onFrame();
+        coalescer.offer(working(5));
+        coalescer.onFrame();
+
+        assertEquals(1, coalescer.getDeliveryCount());
+    }
+
+    @Test
+    public void sameStateIsDeliveredAgainAfterComingBack() {
+        coalescer.setActive(true);
+        coalescer.offer(working(5));
+        coalescer.onFrame();
+
+        // onStop / onStart: the service re-sends the unchanged state on rebind
+        coalescer.setActive(false);
+        coalescer.setActive(true);
+        coalescer.offer(working(5));
+        coalescer.onFrame();
+
+        assertEquals(2, coalescer.getDeliveryCount());
+        assertEquals(List.of(working(5), working(5)), delivered);
+    }
+
+    @Test
+    public void oneDeliveryPerFrameAcrossManyFrames() {
+        coalescer.setActive(true);
+        for (int frame = 0; frame < 10; frame++) {
+            coalescer.offer(working(frame * 2));
+            coalescer.offer(working(frame * 2 + 1));
+            coalescer.onFrame();
+        }
+
+        assertEquals(10, frameRequests);
+        assertEquals(10, delivered.size());
+        assertEquals(ServiceState.STOPPED, new ServiceState(false, CycleEngine.Phase.IDLE, 0));
+    }
+}
@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+# Compares the memory kept resident while only the timer runs, with EyeBlinkerService in the app
+# process (default) and in its own ":timer" process (-PeyeBlinker.timerProcess=true).
+#
+# For each setup: installs the debug build, starts the timer from the UI, leaves the app, asks the
+# system to drop the now cached UI process (only possible when the service lives elsewhere), waits
+# for things to settle and reads PSS and Java heap from dumpsys meminfo.
+#
+# Usage: scripts/measure_timer_memory.sh [settle seconds, default 20]
+# Needs adb with exactly one device or emulator attached (API 24+).
+set -euo pipefail
+
+PACKAGE=com.example.eye
+SETTLE_SECONDS=${1:-20}
+cd "$(dirname "$0")/.."
+
+# Taps the "Start Blinker" button, found through a UI dump; asks for a manual tap if that fails
+start_timer() {
+    adb shell am start -W -n "$PACKAGE/.MainActivity" >/dev/null
+    sleep 2
+    adb shell uiautomator dump /sdcard/eye_ui.xml >/dev/null 2>&1 || true
+    local bounds
+    bounds=$(adb shell cat /sdcard/eye_ui.xml 2>/dev/null \
+        | grep -o 'text="Start Blinker"[^>]*bounds="\[[0-9]*,[0-9]*\]\[[0-9]*,[0-9]*\]"' \
+        | grep -o '\[[0-9]*,[0-9]*\]\[[0-9]*,[0-9]*\]' || true)
+    if [[ -n "$bounds" ]]; then
+        read -r x1 y1 x2 y2 <<<"$(echo "$bounds" | tr -c '0-9' ' ')"
+        adb shell input tap $(((x1 + x2) / 2)) $(((y1 + y2) / 2))
+    else
+        read -r -p "Tap 'Start Blinker' on the device, then press Enter. "
+    fi
+    sleep 2
+}
+
+# Prints "<total PSS KB> <Java heap KB>" for a process, or "- -" if it is not running
+meminfo() {
+    local out
+    out=$(adb shell dumpsys meminfo "$1" 2>/dev/null || true)
+    if ! grep -q "Java Heap" <<<"$out"; then
+        echo "- -"
+        return
+    fi
+    local pss heap
+    pss=$(grep -m1 -E '^ *TOTAL( PSS:)? ' <<<"$out" | awk '{ for (i = 1; i <= NF; i++) if ($i ~ /^[0-9]+$/) { print $i; exit } }')
+    heap=$(grep -m1 'Java Heap:' <<<"$out" | awk '{ print $3 }')
+    echo "${pss:--} ${heap:--}"
+}
+
+measure() {
+    local setup=$1 timer_process=$2
+    ./gradlew -q :app:installDebug -PeyeBlinker.timerProcess="$timer_process"
+    adb shell am force-stop "$PACKAGE"
+    start_timer
+    adb shell input keyevent KEYCODE_HOME
+    sleep 2
+    # Kills the UI process only if it is cached, i.e. nothing in it runs in the foreground
+    adb shell am kill "$PACKAGE"
+    sleep "$SETTLE_SECONDS"
+    read -r main_pss main_heap <<<"$(meminfo "$PACKAGE")"
+    read -r timer_pss timer_heap <<<"$(meminfo "$PACKAGE:timer")"
+    printf '%-16s %14s %14s %14s %14s\n' "$setup" "$main_pss" "$main_heap" "$timer_pss" "$timer_heap"
+    adb shell am force-stop "$PACKAGE"
+}
+
+printf '%-16s %14s %14s %14s %14s\n' "setup" "app PSS KB" "app heap KB" ":timer PSS KB" ":timer heap KB"
+measure single-process false
+measure timer-process true
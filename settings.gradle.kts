@@ -21,4 +21,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "Eye"
 include(":app")
+include(":core")
+include(":benchmark")
+include(":simulator")
  
\ No newline at end of file
@@ -0,0 +1,26 @@
+// Command-line wakeup / energy simulator: replays a usage trace against the timing logic in :core
+// and compares scheduling strategies.
+//   ./gradlew :simulator:run --args="traces/workday.trace"
+//   ./gradlew :simulator:run --args="--synthetic 365"
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+application {
+    mainClass.set("com.example.eye.simulator.WakeupSimulator")
+}
+
+tasks.named<JavaExec>("run") {
+    workingDir = projectDir
+    standardInput = System.`in`
+}
+
+dependencies {
+    implementation(project(":core"))
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,83 @@
+package com.example.eye.simulator;
+
+import com.example.eye.AdaptiveWorkPolicy;
+import com.example.eye.CycleEngine;
+import com.example.eye.PhaseNotifier;
+import com.example.eye.SchedulePlan;
+import com.example.eye.StatusText;
+import com.example.eye.VibrationFeedbackType;
+
+/**
+ * Today's service: the real {@link CycleEngine} waking up only at phase boundaries, with the
+ * notification posted through {@link PhaseNotifier} as EyeBlinkerService does. In adaptive mode an
+ * {@link AdaptiveWorkPolicy} pauses work while the screen is off, as with the "Pause while the
+ * screen is off" switch.
+ */
+final class EngineStrategy extends Strategy implements CycleEngine.Listener {
+
+    private final boolean adaptive;
+    private final CycleEngine engine;
+    private final PhaseNotifier phaseNotifier;
+    private AdaptiveWorkPolicy adaptivePolicy;
+    private long alertDueElapsed; // When the next alert is meant to play, as armed at the last phase change
+
+    EngineStrategy(String name, boolean adaptive) {
+        super(name);
+        this.adaptive = adaptive;
+        engine = new CycleEngine(clock, clock, this);
+        phaseNotifier = new PhaseNotifier((contentText, phaseEndElapsed) -> countNotify());
+        setWakeupTarget(engine::onWakeup);
+    }
+
+    @Override
+    void start(SchedulePlan plan) {
+        countNotify(); // startForeground
+        phaseNotifier.reset();
+        adaptivePolicy = adaptive ? new AdaptiveWorkPolicy(clock, engine) : null;
+        engine.start(plan);
+    }
+
+    @Override
+    void stop() {
+        engine.stop();
+        adaptivePolicy = null;
+    }
+
+    @Override
+    void reconfigure(SchedulePlan plan) {
+        engine.reconfigure(plan);
+    }
+
+    @Override
+    boolean isRunning() {
+        return engine.getPhase() != CycleEngine.Phase.IDLE;
+    }
+
+    @Override
+    void onScreenOff() {
+        if (adaptivePolicy != null) adaptivePolicy.onScreenOff();
+    }
+
+    @Override
+    void onUserPresent() {
+        if (adaptivePolicy != null) adaptivePolicy.onUserPresent();
+    }
+
+    @Override
+    public void onFeedback(VibrationFeedbackType type) {
+        // Same length as the service plays: never past the end of a short break
+        long breakVibrationMillis = Math.min(engine.getPlan().getVibrationMillis(), engine.getCurrentBreakMillis());
+        // Also right for a catch-up summary: it stands in for the first boundary it covers
+        countAlert(type, breakVibrationMillis, alertDueElapsed);
+    }
+
+    @Override
+    public void onPhaseStarted(CycleEngine.Phase phase, CycleEngine.Phase previous, long phaseEndElapsed) {
+        // As the service: both break segments count down to the end of the break, which is also
+        // where the next alert is due (the end of the vibration is silent)
+        long countdownEndElapsed = engine.getCountdownEndElapsed();
+        alertDueElapsed = countdownEndElapsed;
+        phaseNotifier.update(StatusText.notificationText(phase), phase == CycleEngine.Phase.PAUSED ? 0 : countdownEndElapsed);
+        if (adaptivePolicy != null) adaptivePolicy.onPhaseStarted(phase);
+    }
+}
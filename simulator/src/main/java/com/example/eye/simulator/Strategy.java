@@ -0,0 +1,112 @@
+package com.example.eye.simulator;
+
+import com.example.eye.HapticLibrary;
+import com.example.eye.LatencyHistogram;
+import com.example.eye.SchedulePlan;
+import com.example.eye.VibrationFeedbackType;
+import com.example.eye.VirtualClock;
+
+/**
+ * A way of scheduling the work / break cycle, replayed on its own {@link VirtualClock}.
+ * Subclasses drive the clock and report what the real service would have done through
+ * {@link #countNotify()} and {@link #countAlert}; all counters are fixed-size.
+ */
+abstract class Strategy {
+
+    private final String name;
+    final VirtualClock clock = new VirtualClock(0);
+    private final long backToWorkMillis;
+    private final long catchUpMillis;
+
+    private final LatencyHistogram alertError = new LatencyHistogram();
+    private long wakeupCount;
+    private long notifyCount;
+    private long alertCount;
+    private long vibrationMillis;
+
+    Strategy(String name) {
+        this.name = name;
+        HapticLibrary library = new HapticLibrary();
+        backToWorkMillis = library.register(HapticLibrary.BACK_TO_WORK, HapticLibrary.DEFAULT_BACK_TO_WORK_SOURCE).getTotalMillis();
+        catchUpMillis = library.register(HapticLibrary.CATCH_UP, HapticLibrary.CATCH_UP_SOURCE).getTotalMillis();
+    }
+
+    /** Sets what runs when the clock delivers a wakeup; every delivery is counted. */
+    final void setWakeupTarget(Runnable target) {
+        clock.setWakeupTarget(() -> {
+            wakeupCount++;
+            target.run();
+        });
+    }
+
+    /** The user starts (or restarts) the timer. */
+    abstract void start(SchedulePlan plan);
+
+    abstract void stop();
+
+    /** New settings applied while running. */
+    abstract void reconfigure(SchedulePlan plan);
+
+    abstract boolean isRunning();
+
+    void onScreenOff() {
+    }
+
+    void onUserPresent() {
+    }
+
+    /** Counts one NotificationManager.notify() (or startForeground) call. */
+    final void countNotify() {
+        notifyCount++;
+    }
+
+    /**
+     * Counts an alert played now.
+     * @param breakVibrationMillis Length of the break-start vibration, used for {@link VibrationFeedbackType#CONTINUOUS_AFTER_WORK}.
+     * @param dueElapsed The deadline the strategy itself had set for this alert when it armed it.
+     *                   Deliberate shifts (a pause, a timer restarted late) move the deadline and
+     *                   are not counted as error; a wakeup held back by Doze is.
+     */
+    final void countAlert(VibrationFeedbackType type, long breakVibrationMillis, long dueElapsed) {
+        alertCount++;
+        alertError.record(clock.elapsedRealtime() - dueElapsed);
+        switch (type) {
+            case CONTINUOUS_AFTER_WORK:
+                vibrationMillis += breakVibrationMillis;
+                break;
+            case INTERVAL_BACK_TO_WORK:
+                vibrationMillis += backToWorkMillis;
+                break;
+            case CATCH_UP_SUMMARY:
+                vibrationMillis += catchUpMillis;
+                break;
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /** @return Number of times the device was woken up for this strategy. */
+    long getWakeupCount() {
+        return wakeupCount;
+    }
+
+    long getNotifyCount() {
+        return notifyCount;
+    }
+
+    long getAlertCount() {
+        return alertCount;
+    }
+
+    /** @return Total time the vibrator ran for alerts. */
+    long getVibrationMillis() {
+        return vibrationMillis;
+    }
+
+    /** @return How late each alert played (ms) compared to the deadline its strategy had set for it. */
+    LatencyHistogram getAlertError() {
+        return alertError;
+    }
+}
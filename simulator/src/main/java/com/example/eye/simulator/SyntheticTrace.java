@@ -0,0 +1,127 @@
+package com.example.eye.simulator;
+
+import java.io.Reader;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates a usage trace of any number of office days on the fly, one day at a time, for
+ * {@link TraceReader}: the whole trace is never held in memory.
+ *
+ * <p>Each day the user unlocks the phone in the morning, starts the timer (mostly the custom
+ * defaults, sometimes pomodoro or 20-20-20), alternates between using the phone and leaving it on
+ * the desk, maybe changes the work time in the afternoon, and stops the timer in the evening, or
+ * one day in five forgets to. Screen-off periods of more than 45 minutes go into Doze with
+ * maintenance windows, as does every night, where the windows get further apart.
+ * The same seed always gives the same trace.
+ */
+final class SyntheticTrace extends Reader {
+
+    private static final long MINUTE = 60_000;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    private final int days;
+    private final Random random;
+    private final StringBuilder buffer = new StringBuilder();
+    private int position;
+    private int day;
+    private boolean ended;
+
+    SyntheticTrace(int days, long seed) {
+        if (days < 1) throw new IllegalArgumentException("At least one day");
+        this.days = days;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public int read(char[] target, int offset, int length) {
+        while (position == buffer.length()) {
+            if (!fill()) return -1;
+        }
+        int count = Math.min(length, buffer.length() - position);
+        buffer.getChars(position, position + count, target, offset);
+        position += count;
+        return count;
+    }
+
+    private boolean fill() {
+        buffer.setLength(0);
+        position = 0;
+        if (day < days) {
+            appendDay(day++);
+            return true;
+        }
+        if (ended) return false;
+        ended = true;
+        line((long) days * DAY, "end");
+        return true;
+    }
+
+    private void appendDay(int day) {
+        long base = day * DAY;
+        long t = base + 8 * HOUR + randomMillis(30 * MINUTE);
+        line(t, "screen_on");
+        line(t, "user_present");
+        t += MINUTE;
+        line(t, startLine());
+
+        long evening = base + 17 * HOUR + randomMillis(90 * MINUTE);
+        boolean reconfigured = false;
+        while (true) {
+            t += 5 * MINUTE + randomMillis(HOUR); // Using the phone
+            if (t >= evening) break;
+            if (!reconfigured && t > base + 13 * HOUR && random.nextInt(3) == 0) {
+                line(t, "config work=" + (15 + 5 * random.nextInt(4)) + "m");
+                reconfigured = true;
+            }
+            line(t, "screen_off");
+            long away = MINUTE + randomMillis(random.nextInt(5) == 0 ? 2 * HOUR : 15 * MINUTE);
+            if (away > 45 * MINUTE) doze(t + 30 * MINUTE, t + away, 30 * MINUTE, 30 * MINUTE);
+            t += away;
+            line(t, "screen_on"); // Also ends Doze
+            line(t, "user_present");
+        }
+        if (random.nextInt(5) != 0) line(t, "stop");
+        line(t + MINUTE, "screen_off");
+        // Night: maintenance windows at growing intervals until the next morning (or the end of the trace)
+        long morning = day == days - 1 ? base + DAY : base + DAY + 8 * HOUR;
+        doze(t + 31 * MINUTE, morning, HOUR, 6 * HOUR);
+    }
+
+    /** Doze from {@code from} until {@code until}, with a short maintenance window every {@code gap} (doubling up to {@code maxGap}). */
+    private void doze(long from, long until, long gap, long maxGap) {
+        if (from >= until) return;
+        line(from, "doze_start");
+        for (long window = from + gap; window + MINUTE < until; window += gap) {
+            line(window, "doze_end");
+            line(window + 30_000, "doze_start");
+            gap = Math.min(gap * 2, maxGap);
+        }
+    }
+
+    private String startLine() {
+        switch (random.nextInt(4)) {
+            case 0:
+                return "start plan=pomodoro";
+            case 1:
+                return "start plan=eye_rest vib=5s";
+            default:
+                return "start plan=custom work=20m break=2m vib=20s";
+        }
+    }
+
+    private long randomMillis(long bound) {
+        return (long) (random.nextDouble() * bound) / 1000 * 1000;
+    }
+
+    private void line(long millis, String event) {
+        long seconds = millis / 1000;
+        buffer.append(String.format(Locale.ROOT, "%d:%02d:%02d %s%n", seconds / 3600, seconds / 60 % 60, seconds % 60, event));
+    }
+
+    @Override
+    public void close() {
+        buffer.setLength(0);
+    }
+}
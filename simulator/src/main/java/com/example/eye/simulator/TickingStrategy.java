@@ -0,0 +1,90 @@
+package com.example.eye.simulator;
+
+import com.example.eye.SchedulePlan;
+import com.example.eye.VibrationFeedbackType;
+
+/**
+ * The original service: one CountDownTimer per phase with a 1 s interval, each tick re-posting
+ * the notification with the remaining time, and the next phase's timer started from onFinish.
+ *
+ * <p>Follows CountDownTimer's own loop: the first tick runs right at start, then one every second,
+ * the last delay is shortened to end exactly at the deadline, and a late message after Doze ticks
+ * or finishes based on the time left. Since every phase starts when the previous one actually
+ * finished, lateness adds up into drift; the alert error only counts how late each timer finished
+ * against its own deadline, since every phase is deliberately timed from the previous one's end.
+ */
+final class TickingStrategy extends Strategy {
+
+    private static final long TICK_MILLIS = 1000;
+
+    private SchedulePlan plan;
+    private boolean running;
+    private int pair;
+    private boolean inBreak;
+    private long stopAt;   // CountDownTimer's own deadline: phase start + length
+
+    TickingStrategy() {
+        super("1hz-timer");
+        setWakeupTarget(this::onTimerMessage);
+    }
+
+    @Override
+    void start(SchedulePlan plan) {
+        this.plan = plan;
+        running = true;
+        pair = 0;
+        inBreak = false;
+        countNotify(); // startForeground
+        startTimer();
+    }
+
+    @Override
+    void stop() {
+        running = false;
+        clock.cancelWakeup();
+    }
+
+    /** The original service had no way to change a running cycle: it stopped and started over. */
+    @Override
+    void reconfigure(SchedulePlan plan) {
+        if (running) start(plan);
+    }
+
+    @Override
+    boolean isRunning() {
+        return running;
+    }
+
+    private void startTimer() {
+        int workSegment = plan.getPairWorkSegment(pair);
+        long length = inBreak ? plan.getPairBreakMillis(workSegment) : plan.getPairWorkMillis(workSegment);
+        long now = clock.elapsedRealtime();
+        stopAt = now + length;
+        countNotify(); // "Status: Working..." / "Status: Break Time..."
+        onTimerMessage(); // CountDownTimer.start() handles its first message right away
+    }
+
+    private void onTimerMessage() {
+        long now = clock.elapsedRealtime();
+        long millisLeft = stopAt - now;
+        if (millisLeft <= 0) {
+            finish();
+            return;
+        }
+        countNotify(); // onTick: "Working: MM:SS"
+        clock.scheduleWakeup(now + Math.min(TICK_MILLIS, millisLeft));
+    }
+
+    private void finish() {
+        if (inBreak) {
+            countAlert(VibrationFeedbackType.INTERVAL_BACK_TO_WORK, 0, stopAt);
+            inBreak = false;
+            pair = (pair + 1) % plan.getPairCount();
+        } else {
+            long breakMillis = plan.getPairBreakMillis(plan.getPairWorkSegment(pair));
+            countAlert(VibrationFeedbackType.CONTINUOUS_AFTER_WORK, Math.min(plan.getVibrationMillis(), breakMillis), stopAt);
+            inBreak = true;
+        }
+        startTimer();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.eye.simulator;
+
+import com.example.eye.SchedulePlan;
+
+/**
+ * One line of a usage trace. A single instance is refilled by {@link TraceReader#next} for every
+ * line, so nothing is kept per event however long the trace is.
+ */
+public final class TraceEvent {
+
+    public enum Type {
+        START,        // The user starts the timer (with the settings on the line)
+        STOP,         // The user stops the timer
+        CONFIG,       // New settings applied while running
+        SCREEN_OFF,
+        SCREEN_ON,    // Screen on, still on the lock screen
+        USER_PRESENT, // Unlocked
+        DOZE_START,   // The device enters Doze: wakeups are held back until it leaves
+        DOZE_END,     // Maintenance window or exit from Doze: held back wakeups are delivered
+        END           // End of the trace; time runs up to here
+    }
+
+    Type type;
+    long timeMillis; // Since the start of the trace
+
+    // Settings of START and CONFIG, with the app defaults for keys the line leaves out
+    SchedulePlan.Preset preset;
+    long workMillis;
+    long breakMillis;
+    long vibrationMillis;
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /** @return The plan the settings of a START or CONFIG line compile to. */
+    public SchedulePlan toPlan() {
+        return SchedulePlan.of(preset, workMillis, vibrationMillis, breakMillis);
+    }
+}
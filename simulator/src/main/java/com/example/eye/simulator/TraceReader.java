@@ -0,0 +1,183 @@
+package com.example.eye.simulator;
+
+import com.example.eye.BlinkerConfig;
+import com.example.eye.SchedulePlan;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+
+/**
+ * Streams a usage trace one line at a time, so traces of any length replay in constant memory.
+ *
+ * <p>Format, one event per line, {@code #} starts a comment:
+ * <pre>
+ *   &lt;time&gt; &lt;event&gt; [key=value ...]
+ *
+ *   08:55       start plan=custom work=20m break=2m vib=20s
+ *   09:40:30    screen_off
+ *   10:05       doze_start
+ *   10:35       doze_end
+ *   12:00       config work=30m
+ *   18:00       stop
+ *   31:00       end
+ * </pre>
+ * Times are HH:MM[:SS] since the start of the trace; hours go past 24 for traces longer than a
+ * day, and times must not go backwards. Events: {@code start}, {@code stop}, {@code config},
+ * {@code screen_off}, {@code screen_on}, {@code user_present}, {@code doze_start}, {@code doze_end},
+ * {@code end}. Settings of {@code start} and {@code config}: {@code plan} (custom, pomodoro, eye_rest),
+ * {@code work}, {@code break} and {@code vib} as a number with a unit (ms, s, m, h). A {@code config}
+ * line keeps the values it leaves out; {@code start} falls back to the app defaults.
+ */
+public final class TraceReader implements AutoCloseable {
+
+    private final BufferedReader reader;
+    private long lineNumber;
+    private long lastTimeMillis;
+
+    // Settings carried over between START / CONFIG lines
+    private SchedulePlan.Preset preset = SchedulePlan.Preset.CUSTOM;
+    private long workMillis;
+    private long breakMillis;
+    private long vibrationMillis;
+
+    public TraceReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        resetSettings();
+    }
+
+    /**
+     * Reads the next event into {@code event}.
+     * @return false at the end of the trace.
+     * @throws IllegalArgumentException with the line number if a line is malformed.
+     */
+    public boolean next(TraceEvent event) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            parseLine(line.split("\\s+"), event);
+            return true;
+        }
+        return false;
+    }
+
+    private void parseLine(String[] tokens, TraceEvent event) {
+        if (tokens.length < 2) throw error("Expected a time and an event");
+        long time = parseTime(tokens[0]);
+        if (time < lastTimeMillis) throw error("Time goes backwards");
+        lastTimeMillis = time;
+        TraceEvent.Type type;
+        try {
+            type = TraceEvent.Type.valueOf(tokens[1].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw error("Unknown event '" + tokens[1] + "'");
+        }
+        if (type == TraceEvent.Type.START) resetSettings();
+        boolean hasSettings = type == TraceEvent.Type.START || type == TraceEvent.Type.CONFIG;
+        if (!hasSettings && tokens.length > 2) throw error("'" + tokens[1] + "' takes no settings");
+        for (int i = 2; i < tokens.length; i++) parseSetting(tokens[i]);
+        event.type = type;
+        event.timeMillis = time;
+        event.preset = preset;
+        event.workMillis = workMillis;
+        event.breakMillis = breakMillis;
+        event.vibrationMillis = vibrationMillis;
+    }
+
+    private void parseSetting(String token) {
+        int equals = token.indexOf('=');
+        if (equals <= 0) throw error("Expected key=value, got '" + token + "'");
+        String key = token.substring(0, equals);
+        String value = token.substring(equals + 1);
+        switch (key) {
+            case "plan":
+                try {
+                    preset = SchedulePlan.Preset.valueOf(value.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw error("Unknown plan '" + value + "'");
+                }
+                break;
+            case "work":
+                workMillis = parsePositiveDuration(value);
+                break;
+            case "break":
+                breakMillis = parsePositiveDuration(value);
+                break;
+            case "vib":
+                vibrationMillis = parseDuration(value);
+                break;
+            default:
+                throw error("Unknown setting '" + key + "'");
+        }
+    }
+
+    private void resetSettings() {
+        preset = SchedulePlan.Preset.CUSTOM;
+        workMillis = BlinkerConfig.DEFAULT_WORK_TIME_SEC * 1000L;
+        breakMillis = BlinkerConfig.DEFAULT_BREAK_TIME_SEC * 1000L;
+        vibrationMillis = BlinkerConfig.DEFAULT_VIBRATION_TIME_SEC * 1000L;
+    }
+
+    /** HH:MM or HH:MM:SS, hours unbounded. */
+    private long parseTime(String text) {
+        String[] parts = text.split(":");
+        if (parts.length < 2 || parts.length > 3) throw error("Expected HH:MM[:SS], got '" + text + "'");
+        long hours = parseNumber(parts[0], text);
+        long minutes = parseNumber(parts[1], text);
+        long seconds = parts.length == 3 ? parseNumber(parts[2], text) : 0;
+        if (minutes > 59 || seconds > 59) throw error("Expected HH:MM[:SS], got '" + text + "'");
+        return ((hours * 60 + minutes) * 60 + seconds) * 1000;
+    }
+
+    private long parsePositiveDuration(String text) {
+        long millis = parseDuration(text);
+        if (millis <= 0) throw error("Duration must be positive, got '" + text + "'");
+        return millis;
+    }
+
+    /** A number followed by ms, s, m or h. */
+    private long parseDuration(String text) {
+        int unitStart = 0;
+        while (unitStart < text.length() && Character.isDigit(text.charAt(unitStart))) unitStart++;
+        long value = parseNumber(text.substring(0, unitStart), text);
+        switch (text.substring(unitStart)) {
+            case "ms":
+                return value;
+            case "s":
+                return value * 1000;
+            case "m":
+                return value * 60_000;
+            case "h":
+                return value * 3_600_000;
+            default:
+                throw error("Expected a duration like 90s or 20m, got '" + text + "'");
+        }
+    }
+
+    private long parseNumber(String digits, String context) {
+        if (digits.isEmpty() || digits.length() > 9) throw error("Bad number in '" + context + "'");
+        for (int i = 0; i < digits.length(); i++) {
+            if (!Character.isDigit(digits.charAt(i))) throw error("Bad number in '" + context + "'");
+        }
+        return Long.parseLong(digits);
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Trace line " + lineNumber + ": " + message);
+    }
+
+    /** @return Number of lines read so far, comments and blank lines included. */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
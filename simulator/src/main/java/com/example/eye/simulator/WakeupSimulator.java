@@ -0,0 +1,164 @@
+package com.example.eye.simulator;
+
+import com.example.eye.LatencyHistogram;
+import com.example.eye.SchedulePlan;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Replays a usage trace (screen on/off, Doze windows, settings changes; see {@link TraceReader})
+ * against each scheduling strategy and compares what they cost:
+ * <ul>
+ *   <li>{@code 1hz-timer}: the original CountDownTimer service, ticking every second.</li>
+ *   <li>{@code boundary}: the {@link com.example.eye.CycleEngine}, waking up only at phase boundaries.</li>
+ *   <li>{@code adaptive}: the same with work paused while the screen is off.</li>
+ * </ul>
+ * Reported per strategy: wakeups (alarm or handler deliveries that ran code), NotificationManager
+ * calls, alerts played, total vibration time and how late alerts played against the deadline
+ * their strategy had armed for them. The trace is streamed and all strategies advance together, so memory stays constant for traces
+ * of any length.
+ *
+ * <p>Each strategy runs on its own {@link com.example.eye.VirtualClock}. While the device dozes
+ * time passes without delivering anything, and when it leaves Doze an overdue wakeup fires once,
+ * late. That holds for alarms (setExact is deferred to the next maintenance window) and for
+ * Handler posts alike (the CPU is suspended), so every strategy sees the same device.
+ *
+ * <pre>
+ * Usage: WakeupSimulator &lt;trace file&gt;   replay a trace, "-" reads stdin
+ *        WakeupSimulator --synthetic &lt;days&gt; [seed]   replay a generated trace of office days
+ * </pre>
+ */
+public final class WakeupSimulator {
+
+    private final Strategy[] strategies = {
+            new TickingStrategy(),
+            new EngineStrategy("boundary", false),
+            new EngineStrategy("adaptive", true)
+    };
+    private boolean dozing;
+    private long eventCount;
+    private long endMillis;
+
+    /**
+     * Replays every event of the trace, then runs time up to the last event (or the {@code end} line).
+     * @throws IllegalArgumentException if the trace is malformed.
+     */
+    public void replay(TraceReader reader) throws IOException {
+        TraceEvent event = new TraceEvent();
+        while (reader.next(event)) {
+            eventCount++;
+            endMillis = event.getTimeMillis();
+            for (Strategy strategy : strategies) {
+                if (dozing) {
+                    strategy.clock.suspendTo(endMillis);
+                } else {
+                    strategy.clock.advanceTo(endMillis);
+                }
+            }
+            if (event.getType() == TraceEvent.Type.END) break;
+            apply(event);
+        }
+    }
+
+    private void setDozing(boolean dozing) {
+        boolean leaving = this.dozing && !dozing;
+        this.dozing = dozing;
+        if (leaving) {
+            for (Strategy strategy : strategies) strategy.clock.wakeUp();
+        }
+    }
+
+    private void apply(TraceEvent event) {
+        switch (event.getType()) {
+            case START: {
+                SchedulePlan plan = event.toPlan(); // Immutable, shared by all strategies
+                for (Strategy strategy : strategies) strategy.start(plan);
+                break;
+            }
+            case CONFIG: {
+                SchedulePlan plan = event.toPlan();
+                for (Strategy strategy : strategies) {
+                    if (strategy.isRunning()) strategy.reconfigure(plan);
+                }
+                break;
+            }
+            case STOP:
+                for (Strategy strategy : strategies) strategy.stop();
+                break;
+            case SCREEN_OFF:
+                for (Strategy strategy : strategies) strategy.onScreenOff();
+                break;
+            case SCREEN_ON:
+                // Turning the screen on takes the device out of Doze
+                setDozing(false);
+                break;
+            case USER_PRESENT:
+                setDozing(false);
+                for (Strategy strategy : strategies) strategy.onUserPresent();
+                break;
+            case DOZE_START:
+                setDozing(true);
+                break;
+            case DOZE_END:
+                setDozing(false);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Writes the comparison table. */
+    public void printReport(PrintStream out) {
+        long seconds = endMillis / 1000;
+        out.printf(Locale.ROOT, "Replayed %d events over %dd %02d:%02d:%02d%n%n", eventCount,
+                seconds / 86400, seconds / 3600 % 24, seconds / 60 % 60, seconds % 60);
+        out.printf(Locale.ROOT, "%-10s %10s %10s %7s %12s   %s%n",
+                "strategy", "wakeups", "notify", "alerts", "vibration", "alert error mean / p99 / max");
+        for (Strategy strategy : strategies) {
+            LatencyHistogram error = strategy.getAlertError();
+            out.printf(Locale.ROOT, "%-10s %10d %10d %7d %11.1fs   %s / %s / %s%n",
+                    strategy.getName(), strategy.getWakeupCount(), strategy.getNotifyCount(),
+                    strategy.getAlertCount(), strategy.getVibrationMillis() / 1000.0,
+                    seconds(error.getMean()), seconds(error.getPercentile(99)), seconds(error.getMax()));
+        }
+    }
+
+    private static String seconds(long millis) {
+        return String.format(Locale.ROOT, "%.1fs", millis / 1000.0);
+    }
+
+    /** @return The strategies in report order. */
+    Strategy[] getStrategies() {
+        return strategies;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Reader input;
+        if (args.length >= 2 && args[0].equals("--synthetic")) {
+            input = new SyntheticTrace(Integer.parseInt(args[1]), args.length > 2 ? Long.parseLong(args[2]) : 1);
+        } else if (args.length == 1 && args[0].equals("-")) {
+            input = new InputStreamReader(System.in, StandardCharsets.UTF_8);
+        } else if (args.length == 1) {
+            input = new FileReader(args[0], StandardCharsets.UTF_8);
+        } else {
+            System.err.println("Usage: WakeupSimulator <trace file | ->");
+            System.err.println("       WakeupSimulator --synthetic <days> [seed]");
+            System.exit(2);
+            return;
+        }
+        WakeupSimulator simulator = new WakeupSimulator();
+        try (TraceReader reader = new TraceReader(input)) {
+            simulator.replay(reader);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        simulator.printReport(System.out);
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.eye.simulator;
+
+import com.example.eye.SchedulePlan;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for the wakeup simulator: trace parsing, and the counters of each strategy on short
+ * scripted traces where the expected numbers can be worked out by hand.
+ */
+public class WakeupSimulatorTest {
+
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+
+    private static WakeupSimulator replay(String... lines) throws IOException {
+        WakeupSimulator simulator = new WakeupSimulator();
+        simulator.replay(new TraceReader(new StringReader(String.join("\n", lines))));
+        return simulator;
+    }
+
+    private static Strategy strategy(WakeupSimulator simulator, String name) {
+        for (Strategy strategy : simulator.getStrategies()) {
+            if (strategy.getName().equals(name)) return strategy;
+        }
+        throw new AssertionError("No strategy " + name);
+    }
+
+    private static String parseError(String... lines) throws IOException {
+        try {
+            replay(lines);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        throw new AssertionError("Trace was accepted");
+    }
+
+    @Test
+    public void readerParsesTimesSettingsAndComments() throws IOException {
+        TraceReader reader = new TraceReader(new StringReader(String.join("\n",
+                "# comment",
+                "",
+                "08:30 start plan=pomodoro vib=5s   # trailing comment",
+                "27:05:30 config work=30m",
+                "27:06 START")));
+        TraceEvent event = new TraceEvent();
+
+        assertTrue(reader.next(event));
+        assertEquals(TraceEvent.Type.START, event.getType());
+        assertEquals(8 * 60 * MINUTE + 30 * MINUTE, event.getTimeMillis());
+        SchedulePlan plan = event.toPlan();
+        assertEquals(SchedulePlan.Preset.POMODORO, plan.getPreset());
+        assertEquals(5 * SECOND, plan.getVibrationMillis());
+
+        assertTrue(reader.next(event));
+        assertEquals(TraceEvent.Type.CONFIG, event.getType());
+        assertEquals(27 * 60 * MINUTE + 5 * MINUTE + 30 * SECOND, event.getTimeMillis());
+        plan = event.toPlan();
+        assertEquals("config keeps the earlier settings", SchedulePlan.Preset.POMODORO, plan.getPreset());
+        assertEquals(30 * MINUTE, plan.getWorkMillis());
+        assertEquals(5 * SECOND, plan.getVibrationMillis());
+
+        assertTrue(reader.next(event));
+        plan = event.toPlan();
+        assertEquals("start goes back to the defaults", SchedulePlan.Preset.CUSTOM, plan.getPreset());
+        assertEquals(20 * MINUTE, plan.getWorkMillis());
+        assertEquals(2 * MINUTE, plan.getBreakMillis());
+        assertEquals(20 * SECOND, plan.getVibrationMillis());
+
+        assertFalse(reader.next(event));
+        assertEquals(5, reader.getLineNumber());
+    }
+
+    @Test
+    public void readerRejectsMalformedLines() throws IOException {
+        assertEquals("Trace line 2: Time goes backwards", parseError("01:00 start", "00:59 stop"));
+        assertEquals("Trace line 1: Unknown event 'nap'", parseError("01:00 nap"));
+        assertEquals("Trace line 1: Expected HH:MM[:SS], got '1:75'", parseError("1:75 start"));
+        assertEquals("Trace line 1: Expected a duration like 90s or 20m, got '20min'", parseError("00:00 start work=20min"));
+        assertEquals("Trace line 1: Duration must be positive, got '0s'", parseError("00:00 start break=0s"));
+        assertEquals("Trace line 1: Unknown plan 'tomato'", parseError("00:00 start plan=tomato"));
+        assertEquals("Trace line 1: 'stop' takes no settings", parseError("00:00 stop work=1m"));
+        assertEquals("Trace line 1: Expected a time and an event", parseError("00:00"));
+    }
+
+    @Test
+    public void steadyHourAlertsOnTimeWithEveryStrategy() throws IOException {
+        // 20m work + 20s vibration + 1m40s rest: boundaries at 20:00, 20:20, 22:00, 42:00, 42:20, 44:00
+        WakeupSimulator simulator = replay(
+                "00:00 start work=20m break=2m vib=20s",
+                "01:00 end");
+
+        Strategy ticking = strategy(simulator, "1hz-timer");
+        assertEquals("one wakeup per second", 3600, ticking.getWakeupCount());
+        // startForeground, one status post per phase and one tick per second, 00:00 and 01:00 included
+        assertEquals(1 + 5 + 3601, ticking.getNotifyCount());
+
+        Strategy boundary = strategy(simulator, "boundary");
+        assertEquals(6, boundary.getWakeupCount());
+        // The break counts down to its end through the vibration, so the vibration ending posts nothing
+        assertEquals("startForeground and one post per work phase and break", 1 + 5, boundary.getNotifyCount());
+
+        for (Strategy strategy : simulator.getStrategies()) {
+            assertEquals(strategy.getName(), 4, strategy.getAlertCount());
+            assertEquals(strategy.getName(), 2 * 20 * SECOND + 2 * 4500, strategy.getVibrationMillis());
+            assertEquals(strategy.getName(), 0, strategy.getAlertError().getMax());
+        }
+    }
+
+    @Test
+    public void adaptivePauseMovesTheDeadlinesInsteadOfMakingAlertsLate() throws IOException {
+        WakeupSimulator simulator = replay(
+                "00:00 start work=20m break=2m vib=20s",
+                "00:05 screen_off",
+                "00:06 screen_on",
+                "00:06 user_present",
+                "00:30 end");
+
+        Strategy adaptive = strategy(simulator, "adaptive");
+        // Work paused for a minute, shorter than a break: the break is meant to run 21:00 to 23:00 and does
+        assertEquals(2, adaptive.getAlertCount());
+        assertEquals(0, adaptive.getAlertError().getMax());
+
+        Strategy boundary = strategy(simulator, "boundary");
+        assertEquals(2, boundary.getAlertCount());
+        assertEquals(0, boundary.getAlertError().getMax());
+    }
+
+    @Test
+    public void dozeDelaysTheTickerAndItsDriftStays() throws IOException {
+        WakeupSimulator simulator = replay(
+                "00:00 start work=20m break=2m vib=20s",
+                "00:10 screen_off",
+                "00:15 doze_start",
+                "01:00 doze_end",
+                "01:05 end");
+
+        Strategy ticking = strategy(simulator, "1hz-timer");
+        // Work ends 40m late at 01:00; the break timer starts from there and ends on its own deadline
+        assertEquals(40 * MINUTE, ticking.getAlertError().getMax());
+        assertEquals(2, ticking.getAlertCount()); // 01:00 and 01:02
+        assertEquals(20 * MINUTE, ticking.getAlertError().getMean());
+
+        Strategy boundary = strategy(simulator, "boundary");
+        // At 01:00 the 20:00, 20:20, 22:00, 42:00, 42:20, 44:00 boundaries have passed: one summary
+        // alert, then the break starts on time at 01:04
+        assertEquals(2, boundary.getAlertCount());
+        assertEquals(40 * MINUTE, boundary.getAlertError().getMax());
+        assertEquals(200 + 150 + 200 + 150 + 600 + 20 * SECOND, boundary.getVibrationMillis());
+        assertEquals("one to catch up, two after", 3, boundary.getWakeupCount());
+
+        Strategy adaptive = strategy(simulator, "adaptive");
+        // Paused at 00:10 with the screen off: nothing is scheduled, so Doze changes nothing
+        assertEquals(0, adaptive.getWakeupCount());
+        assertEquals(0, adaptive.getAlertCount());
+    }
+
+    @Test
+    public void configChangeRestartsOnlyTheTicker() throws IOException {
+        WakeupSimulator simulator = replay(
+                "00:00 start work=20m break=2m vib=20s",
+                "00:10 config work=30m",
+                "00:35 end");
+
+        Strategy ticking = strategy(simulator, "1hz-timer");
+        // Started over at 00:10 with 30m of work: no alert yet, and it should have come at 00:30
+        assertEquals(0, ticking.getAlertCount());
+
+        Strategy boundary = strategy(simulator, "boundary");
+        // Keeps the 10 minutes already worked: the break starts at 00:30
+        assertEquals(2, boundary.getAlertCount());
+        assertEquals(0, boundary.getAlertError().getMax());
+    }
+
+    @Test
+    public void syntheticTraceIsValidAndRepeatable() throws IOException {
+        WakeupSimulator first = new WakeupSimulator();
+        first.replay(new TraceReader(new SyntheticTrace(30, 42)));
+        WakeupSimulator second = new WakeupSimulator();
+        second.replay(new TraceReader(new SyntheticTrace(30, 42)));
+
+        for (int i = 0; i < first.getStrategies().length; i++) {
+            Strategy a = first.getStrategies()[i];
+            Strategy b = second.getStrategies()[i];
+            assertEquals(a.getWakeupCount(), b.getWakeupCount());
+            assertEquals(a.getNotifyCount(), b.getNotifyCount());
+            assertEquals(a.getVibrationMillis(), b.getVibrationMillis());
+        }
+        Strategy ticking = strategy(first, "1hz-timer");
+        Strategy boundary = strategy(first, "boundary");
+        Strategy adaptive = strategy(first, "adaptive");
+        assertTrue(boundary.getWakeupCount() * 100 < ticking.getWakeupCount());
+        assertTrue(adaptive.getWakeupCount() < boundary.getWakeupCount());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        first.printReport(new PrintStream(out, true, StandardCharsets.UTF_8));
+        String report = out.toString(StandardCharsets.UTF_8);
+        assertTrue(report, report.startsWith("Replayed "));
+        assertTrue(report, report.contains(" over 30d 00:00:00"));
+        assertTrue(report, report.contains("1hz-timer"));
+    }
+}